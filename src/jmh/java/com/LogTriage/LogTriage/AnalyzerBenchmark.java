@@ -0,0 +1,78 @@
+package com.LogTriage.LogTriage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each LogAnalyzer stage on a pre-parsed synthetic file, plus the list-based and single-pass engines end to end.
+ * The 10M-line case keeps ~8M events in memory, hence the large heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g"})
+public class AnalyzerBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int lines;
+
+    private final LogAnalyzer analyzer = new LogAnalyzer();
+    private ArrayList<Event> events;
+    private Event anchor;
+    private ArrayList<Event> window;
+
+    @Setup
+    public void setUp() throws IOException {
+        events = new ArrayList<>();
+        new LogParser().parse(SyntheticLogs.file(lines), events::add);
+        anchor = analyzer.selectAnchor(events);
+        window = analyzer.getWindow(events, anchor);
+    }
+
+    @Benchmark
+    public Event selectAnchor() {
+        return analyzer.selectAnchor(events);
+    }
+
+    @Benchmark
+    public ArrayList<Event> getWindow() {
+        return analyzer.getWindow(events, anchor);
+    }
+
+    @Benchmark
+    public ArrayList<Event> scanForSecurity() {
+        analyzer.scanForSecurity(window);
+        return window;
+    }
+
+    @Benchmark
+    public int filterNoise() {
+        // filterNoise removes in place, so every invocation works on a fresh copy (the copy is part of the cost)
+        return analyzer.filterNoise(new ArrayList<>(window));
+    }
+
+    @Benchmark
+    public LogBundle triage() {
+        return analyzer.triage(events);
+    }
+
+    @Benchmark
+    public LogBundle incrementalTriage() {
+        IncrementalTriage triage = new IncrementalTriage(analyzer);
+        for (Event e : events) {
+            triage.accept(e);
+        }
+        return triage.finish();
+    }
+}
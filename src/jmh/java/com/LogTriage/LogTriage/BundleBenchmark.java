@@ -0,0 +1,55 @@
+package com.LogTriage.LogTriage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogBundle construction (frames, caused-by chain, component detection) and JSON rendering.
+ * The window is the anchor's requestId group, so it grows with the file size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g"})
+public class BundleBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int lines;
+
+    private Event anchor;
+    private ArrayList<Event> window;
+    private LogBundle bundle;
+
+    @Setup
+    public void setUp() throws IOException {
+        LogAnalyzer analyzer = new LogAnalyzer();
+        ArrayList<Event> events = new ArrayList<>();
+        new LogParser().parse(SyntheticLogs.file(lines), events::add);
+
+        anchor = analyzer.selectAnchor(events);
+        window = analyzer.getWindow(events, anchor);
+        analyzer.scanForSecurity(window);
+        bundle = new LogBundle(anchor, window, 0);
+    }
+
+    @Benchmark
+    public LogBundle construct() {
+        return new LogBundle(anchor, window, 0);
+    }
+
+    @Benchmark
+    public String render() {
+        return bundle.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.LogTriage.LogTriage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Measures retained heap per event for ArrayList&lt;Event&gt; vs CompactEventStore on a synthetic file.
+ * Not a JMH benchmark (JMH measures time, not retained size). Run with
+ *   ./mvnw -Pbench test-compile exec:exec -Dbench.main=com.LogTriage.LogTriage.EventFootprint -Djmh.args=1000000
+ */
+public class EventFootprint {
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path file = SyntheticLogs.file(lines);
+
+        long base = usedHeapAfterGc();
+        ArrayList<Event> events = new ArrayList<>();
+        new LogParser().parse(file, events::add);
+        events.trimToSize();
+        long listBytes = usedHeapAfterGc() - base;
+        int count = events.size();
+        events = null;
+
+        base = usedHeapAfterGc();
+        CompactEventStore store = new CompactEventStore();
+        new LogParser().parse(file, store::append);
+        long storeBytes = usedHeapAfterGc() - base;
+
+        System.out.printf("events:                  %,d%n", count);
+        System.out.printf("ArrayList<Event>:        %,.1f bytes/event%n", (double) listBytes / count);
+        System.out.printf("CompactEventStore:       %,.1f bytes/event (estimate %,.1f)%n",
+                (double) storeBytes / store.size(), store.bytesPerEvent());
+        System.out.printf("reduction:               %.1fx%n", (double) listBytes / storeBytes);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
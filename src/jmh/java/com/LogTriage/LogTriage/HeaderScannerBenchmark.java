@@ -0,0 +1,73 @@
+package com.LogTriage.LogTriage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Regex vs hand-written header recognition over the lines in samples/*.log.
+ * One operation is one pass over all sample lines, so the two modes can be compared directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HeaderScannerBenchmark {
+
+    private static final Pattern HEADER_PATTERN = LogParser.headerPattern();
+
+    @Param({"REGEX", "SCANNER"})
+    public LogParser.HeaderMatcher matcher;
+
+    private ArrayList<String> lines;
+    private LogParser parser;
+    private HeaderScanner scanner;
+
+    @Setup
+    public void setUp() throws IOException {
+        lines = new ArrayList<>();
+        for (String sample : new String[]{"npe.log", "db-timeout.log", "mixed-noise.log"}) {
+            lines.addAll(Files.readAllLines(Path.of("samples", sample)));
+        }
+        parser = new LogParser(matcher);
+        scanner = new HeaderScanner(HEADER_PATTERN);
+    }
+
+    @Benchmark
+    public ArrayList<Event> parseSamples() {
+        return parser.parse(lines);
+    }
+
+    @Benchmark
+    public void recognizeHeaders(Blackhole bh) {
+        for (String line : lines) {
+            if (matcher == LogParser.HeaderMatcher.SCANNER) {
+                if (scanner.scan(line)) {
+                    bh.consume(scanner.timestamp());
+                    bh.consume(scanner.thread());
+                    bh.consume(scanner.level());
+                    bh.consume(scanner.logger());
+                    bh.consume(scanner.message());
+                }
+            } else {
+                Matcher m = HEADER_PATTERN.matcher(line);
+                if (m.find()) {
+                    for (int g = 1; g <= 5; g++) bh.consume(m.group(g));
+                }
+            }
+        }
+    }
+}
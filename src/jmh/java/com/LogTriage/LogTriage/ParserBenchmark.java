@@ -0,0 +1,51 @@
+package com.LogTriage.LogTriage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end parse of a synthetic file: sequential streaming vs chunked parallel, for both header matchers.
+ * Events go to a Blackhole, so only the parser is measured (not an ever-growing list).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ParserBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int lines;
+
+    @Param({"REGEX", "SCANNER"})
+    public LogParser.HeaderMatcher matcher;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = SyntheticLogs.file(lines);
+    }
+
+    @Benchmark
+    public long parseStreaming(Blackhole bh) throws IOException {
+        return new LogParser(matcher).parse(file, bh::consume);
+    }
+
+    @Benchmark
+    public long parseParallel(Blackhole bh) throws IOException {
+        return new ParallelLogParser(ForkJoinPool.commonPool(), () -> new LogParser(matcher)).parse(file, bh::consume);
+    }
+}
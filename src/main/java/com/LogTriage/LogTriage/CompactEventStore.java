@@ -0,0 +1,243 @@
+package com.LogTriage.LogTriage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Memory-compact, append-only store for parsed events.
+ * Instead of one Event object with eight Strings and its own ArrayList per entry, events are kept in columns:
+ * - level, logger, thread, requestId and exceptionClass are dictionary codes (ints),
+ * - the timestamp is an epoch-millis long,
+ * - raw lines live in shared byte pages (1 byte per char for Latin-1 text) and are addressed by offset + length,
+ * - the message is not stored at all when it is a suffix of the header line (the normal case).
+ * get(i) / forEach materialise short-lived Event views, so LogAnalyzer, IncrementalTriage and LogBundle work unchanged.
+ */
+public class CompactEventStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int PAGE_BYTES = 1 << 22; // 4 MB per page
+
+    private final StringDictionary threads = new StringDictionary();
+    private final StringDictionary levels = new StringDictionary();
+    private final StringDictionary loggers = new StringDictionary();
+    private final StringDictionary requestIds = new StringDictionary();
+    private final StringDictionary exceptionClasses = new StringDictionary();
+    // Header timestamps that are not valid dates (the header regex only checks digits)
+    private final HashMap<Integer, String> rawTimestamps = new HashMap<>();
+    // Messages that are not a suffix of their header line
+    private final HashMap<Integer, String> detachedMessages = new HashMap<>();
+
+    // Event columns
+    private int size;
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] threadCodes = new int[INITIAL_CAPACITY];
+    private int[] levelCodes = new int[INITIAL_CAPACITY];
+    private int[] loggerCodes = new int[INITIAL_CAPACITY];
+    private int[] requestIdCodes = new int[INITIAL_CAPACITY];
+    private int[] exceptionCodes = new int[INITIAL_CAPACITY];
+    private int[] messageStarts = new int[INITIAL_CAPACITY]; // offset of the message inside the header line
+    private int[] firstLines = new int[INITIAL_CAPACITY];
+    private int[] lineCounts = new int[INITIAL_CAPACITY];
+    private boolean[] securityRisks = new boolean[INITIAL_CAPACITY];
+
+    // Line table: (page << 32 | offset) and length for every raw line.
+    // A negative length means the line is stored as UTF-16 (it has chars above U+00FF), otherwise Latin-1.
+    private int lineCount;
+    private long[] lineAddresses = new long[INITIAL_CAPACITY];
+    private int[] lineLengths = new int[INITIAL_CAPACITY];
+
+    private final ArrayList<byte[]> pages = new ArrayList<>();
+    private byte[] currentPage;
+    private int pageUsed;
+
+    /**
+     * Copies the event into the columns. The Event itself can be dropped afterwards
+     * (e.g. use store::append as the LogParser sink).
+     */
+    public void append(Event event) {
+        ensureEventCapacity(size + 1);
+        int index = size;
+
+        long millis = Timestamps.toEpochMillis(event.getTimestamp());
+        if (millis == Timestamps.INVALID && event.getTimestamp() != null) {
+            rawTimestamps.put(index, event.getTimestamp());
+        }
+        timestamps[index] = millis;
+        threadCodes[index] = threads.encode(event.getThread());
+        levelCodes[index] = levels.encode(event.getLevel());
+        loggerCodes[index] = loggers.encode(event.getLogger());
+        requestIdCodes[index] = requestIds.encode(event.getRequestId());
+        exceptionCodes[index] = exceptionClasses.encode(event.getExceptionClass());
+        securityRisks[index] = event.isSecurityRisk();
+
+        List<String> rawLines = event.getRawLines();
+        firstLines[index] = lineCount;
+        lineCounts[index] = rawLines == null ? 0 : rawLines.size();
+        if (rawLines != null) {
+            for (String line : rawLines) {
+                appendLine(line);
+            }
+        }
+
+        String message = event.getMessage();
+        String headerLine = (rawLines == null || rawLines.isEmpty()) ? null : rawLines.getFirst();
+        if (message != null && headerLine != null && headerLine.endsWith(message)) {
+            messageStarts[index] = headerLine.length() - message.length();
+        } else {
+            messageStarts[index] = -1;
+            if (message != null) {
+                detachedMessages.put(index, message);
+            }
+        }
+        size++;
+    }
+
+    private void appendLine(String line) {
+        int length = line.length();
+        boolean latin1 = isLatin1(line);
+        int bytes = latin1 ? length : 2 * length;
+        if (currentPage == null || pageUsed + bytes > currentPage.length) {
+            currentPage = new byte[Math.max(PAGE_BYTES, bytes)];
+            pages.add(currentPage);
+            pageUsed = 0;
+        }
+
+        if (latin1) {
+            for (int i = 0; i < length; i++) {
+                currentPage[pageUsed + i] = (byte) line.charAt(i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                char c = line.charAt(i);
+                currentPage[pageUsed + 2 * i] = (byte) (c >> 8);
+                currentPage[pageUsed + 2 * i + 1] = (byte) c;
+            }
+        }
+
+        if (lineCount == lineAddresses.length) {
+            lineAddresses = Arrays.copyOf(lineAddresses, lineCount * 2);
+            lineLengths = Arrays.copyOf(lineLengths, lineCount * 2);
+        }
+        lineAddresses[lineCount] = ((long) (pages.size() - 1) << 32) | pageUsed;
+        lineLengths[lineCount] = latin1 ? length : -length;
+        lineCount++;
+        pageUsed += bytes;
+    }
+
+    private static boolean isLatin1(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > 0xFF) return false;
+        }
+        return true;
+    }
+
+    private void ensureEventCapacity(int needed) {
+        if (needed <= timestamps.length) return;
+        int capacity = Math.max(needed, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        threadCodes = Arrays.copyOf(threadCodes, capacity);
+        levelCodes = Arrays.copyOf(levelCodes, capacity);
+        loggerCodes = Arrays.copyOf(loggerCodes, capacity);
+        requestIdCodes = Arrays.copyOf(requestIdCodes, capacity);
+        exceptionCodes = Arrays.copyOf(exceptionCodes, capacity);
+        messageStarts = Arrays.copyOf(messageStarts, capacity);
+        firstLines = Arrays.copyOf(firstLines, capacity);
+        lineCounts = Arrays.copyOf(lineCounts, capacity);
+        securityRisks = Arrays.copyOf(securityRisks, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materialises event 'index' as a regular Event. Each call returns a fresh object.
+     */
+    public Event get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Event " + index + " of " + size);
+        }
+        Event event = new Event();
+        event.setPosition(index);
+        long millis = timestamps[index];
+        event.setTimestamp(millis == Timestamps.INVALID ? rawTimestamps.get(index) : Timestamps.format(millis));
+        event.setThread(threads.decode(threadCodes[index]));
+        event.setLevel(levels.decode(levelCodes[index]));
+        event.setLogger(loggers.decode(loggerCodes[index]));
+        event.setRequestId(requestIds.decode(requestIdCodes[index]));
+        event.setExceptionClass(exceptionClasses.decode(exceptionCodes[index]));
+        event.setSecurityRisk(securityRisks[index]);
+
+        int first = firstLines[index];
+        for (int i = 0; i < lineCounts[index]; i++) {
+            event.addRawLine(line(first + i));
+        }
+
+        if (messageStarts[index] >= 0) {
+            event.setMessage(event.getRawLines().getFirst().substring(messageStarts[index]));
+        } else {
+            event.setMessage(detachedMessages.get(index));
+        }
+        return event;
+    }
+
+    private String line(int lineIndex) {
+        long address = lineAddresses[lineIndex];
+        byte[] page = pages.get((int) (address >>> 32));
+        int offset = (int) address;
+        int length = lineLengths[lineIndex];
+        if (length >= 0) {
+            return new String(page, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[-length];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (((page[offset + 2 * i] & 0xFF) << 8) | (page[offset + 2 * i + 1] & 0xFF));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Streams every event in order, e.g. store.forEach(new IncrementalTriage()).
+     */
+    public void forEach(Consumer<Event> sink) {
+        for (int i = 0; i < size; i++) {
+            sink.accept(get(i));
+        }
+    }
+
+    public long getTimestampMillis(int index) {
+        return timestamps[index];
+    }
+
+    public String getLevel(int index) {
+        return levels.decode(levelCodes[index]);
+    }
+
+    public String getRequestId(int index) {
+        return requestIds.decode(requestIdCodes[index]);
+    }
+
+    /**
+     * Approximate retained heap of the store (columns + line table + byte pages + dictionaries).
+     */
+    public long estimatedBytes() {
+        long columns = (long) timestamps.length * (8 + 4 * 8 + 1);
+        long lineTable = (long) lineAddresses.length * (8 + 4);
+        long chars = 0;
+        for (byte[] page : pages) {
+            chars += 16 + page.length;
+        }
+        long dictionaries = threads.estimatedBytes() + levels.estimatedBytes() + loggers.estimatedBytes()
+                + requestIds.estimatedBytes() + exceptionClasses.estimatedBytes();
+        long sideTables = 100L * (rawTimestamps.size() + detachedMessages.size());
+        return columns + lineTable + chars + dictionaries + sideTables;
+    }
+
+    public double bytesPerEvent() {
+        return size == 0 ? 0 : (double) estimatedBytes() / size;
+    }
+}
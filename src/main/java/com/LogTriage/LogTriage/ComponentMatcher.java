@@ -0,0 +1,141 @@
+package com.LogTriage.LogTriage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds every component keyword in a line in a single pass (Aho-Corasick, compiled to a DFA).
+ * Matching is case-insensitive like the old "toLowerCase().contains(...)" checks, but nothing is copied:
+ * characters are folded one at a time while walking the automaton.
+ *
+ * Dictionary format (one component per line, '#' starts a comment):
+ *   Redis: redis
+ *   PostgreSQL: postgres, jdbc
+ * Keywords must be ASCII.
+ */
+public class ComponentMatcher {
+
+    private static final String DEFAULT_DICTIONARY = "/components.txt";
+
+    private static volatile ComponentMatcher defaultMatcher;
+
+    private final String[] components;  // component id -> display name
+    private final int[] componentOf;     // keyword id -> component id
+    private final KeywordAutomaton automaton;
+
+    private ComponentMatcher(Map<String, List<String>> dictionary) {
+        this.components = dictionary.keySet().toArray(new String[0]);
+
+        List<String> keywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int id = 0; id < components.length; id++) {
+            for (String keyword : dictionary.get(components[id])) {
+                keywords.add(keyword);
+                owners.add(id);
+            }
+        }
+        this.componentOf = new int[owners.size()];
+        for (int i = 0; i < componentOf.length; i++) {
+            componentOf[i] = owners.get(i);
+        }
+        this.automaton = new KeywordAutomaton(keywords);
+    }
+
+    /**
+     * The matcher built from the bundled components.txt, unless replaced with setDefault.
+     */
+    public static ComponentMatcher getDefault() {
+        ComponentMatcher matcher = defaultMatcher;
+        if (matcher == null) {
+            synchronized (ComponentMatcher.class) {
+                if (defaultMatcher == null) {
+                    try (InputStream in = ComponentMatcher.class.getResourceAsStream(DEFAULT_DICTIONARY)) {
+                        if (in == null) throw new IllegalStateException("Missing resource " + DEFAULT_DICTIONARY);
+                        defaultMatcher = parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                matcher = defaultMatcher;
+            }
+        }
+        return matcher;
+    }
+
+    public static void setDefault(ComponentMatcher matcher) {
+        defaultMatcher = matcher;
+    }
+
+    public static ComponentMatcher load(Path dictionaryFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(dictionaryFile, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    static ComponentMatcher parse(BufferedReader reader) throws IOException {
+        Map<String, List<String>> dictionary = new LinkedHashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            if (line.isBlank()) continue;
+
+            int colon = line.indexOf(':');
+            if (colon <= 0) throw new IOException("Line " + lineNumber + ": expected 'Component: keyword, ...'");
+            String component = line.substring(0, colon).trim();
+            List<String> keywords = dictionary.computeIfAbsent(component, k -> new ArrayList<>());
+            for (String keyword : line.substring(colon + 1).split(",")) {
+                keyword = keyword.trim().toLowerCase(Locale.ROOT);
+                if (keyword.isEmpty()) continue;
+                for (int i = 0; i < keyword.length(); i++) {
+                    if (keyword.charAt(i) >= 128) {
+                        throw new IOException("Line " + lineNumber + ": keyword '" + keyword + "' is not ASCII");
+                    }
+                }
+                keywords.add(keyword);
+            }
+        }
+        return new ComponentMatcher(dictionary);
+    }
+
+    /**
+     * Adds the name of every component with a keyword in 'text' to 'found'.
+     */
+    public void findAll(String text, Collection<String> found) {
+        if (text == null) return;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.next(state, column(text.charAt(i)));
+            for (int id : automaton.outputs(state)) {
+                found.add(components[componentOf[id]]);
+            }
+        }
+    }
+
+    public int componentCount() {
+        return components.length;
+    }
+
+    private int column(char c) {
+        if (c < 128) {
+            if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            return automaton.column(c);
+        }
+        // A few non-ASCII characters lowercase to ASCII (e.g. the Kelvin sign), as with toLowerCase()
+        return automaton.column(Character.toLowerCase(c));
+    }
+}
@@ -8,7 +8,23 @@ import java.util.stream.Stream;
 
 public class ConfigLoader {
 
+    // Read from .env once; a missing key is not remembered, so it can be added without a restart
+    private static volatile String apiKey;
+
     public static String getApiKey() {
+        String key = apiKey;
+        if (key == null) {
+            synchronized (ConfigLoader.class) {
+                if (apiKey == null) {
+                    apiKey = readApiKey();
+                }
+                key = apiKey;
+            }
+        }
+        return key;
+    }
+
+    private static String readApiKey() {
         try (Stream<String> lines = Files.lines(Paths.get(".env"))) {
             Optional<String> result = lines
                     .filter(line -> line.trim().startsWith("GEMINI_API_KEY="))
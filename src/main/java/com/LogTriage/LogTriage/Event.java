@@ -1,6 +1,9 @@
 package com.LogTriage.LogTriage;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
 
 public class Event {
 
@@ -12,8 +15,15 @@ public class Event {
     private String requestId;
     private String exceptionClass;
     private boolean isSecurityRisk;
+    private int position = -1; // index in the parsed event stream, -1 if unknown
+    private String source;     // file the event was read from when several are merged, else null
+    private int rank = -1;     // EventRanker key, set when the parser completes the event, -1 if not ranked yet
 
+    // Every line, or with a stackTrace attached only the lines around it
     private ArrayList<String> rawLines = new ArrayList<>();
+    // Shared stack lines (see StackTraceTable), null if the event has none
+    private StackTraceTable.StackTrace stackTrace;
+    private int stackTraceStart; // raw line index the shared trace starts at
 
     public Event(){
 
@@ -31,6 +41,11 @@ public class Event {
     }
 
     public void addRawLine(String rawLine){
+        if (stackTrace != null) {
+            // Back to a private copy of every line
+            rawLines = new ArrayList<>(getRawLines());
+            stackTrace = null;
+        }
         rawLines.add(rawLine);
     }
 
@@ -94,12 +109,47 @@ public class Event {
         this.message = message;
     }
 
-    public ArrayList<String> getRawLines() {
-        return rawLines;
+    /**
+     * Every line of the event, header first. With a stack trace attached this is a read-only view over
+     * the event's own lines with the shared trace lines in between (nothing is copied).
+     */
+    public List<String> getRawLines() {
+        return stackTrace == null ? rawLines : new RawLines(rawLines, stackTrace, stackTraceStart);
     }
 
     public void setRawLines(ArrayList<String> rawLines) {
         this.rawLines = rawLines;
+        this.stackTrace = null;
+    }
+
+    public StackTraceTable.StackTrace getStackTrace() {
+        return stackTrace;
+    }
+
+    /**
+     * The raw lines that are not part of the shared stack trace, in order (all of them without one).
+     */
+    List<String> getOwnLines() {
+        return rawLines;
+    }
+
+    /**
+     * The raw lines after the shared stack trace (all of them without one).
+     */
+    List<String> getLinesAfterStackTrace() {
+        return stackTrace == null ? rawLines : rawLines.subList(stackTraceStart, rawLines.size());
+    }
+
+    /**
+     * Replaces the trace.size() raw lines at 'start' with the shared trace (they must be the same lines).
+     */
+    void setStackTrace(StackTraceTable.StackTrace trace, int start) {
+        ArrayList<String> own = new ArrayList<>(rawLines.size() - trace.size());
+        own.addAll(rawLines.subList(0, start));
+        own.addAll(rawLines.subList(start + trace.size(), rawLines.size()));
+        this.rawLines = own;
+        this.stackTrace = trace;
+        this.stackTraceStart = start;
     }
 
     public String getRequestId() {
@@ -110,6 +160,30 @@ public class Event {
         this.requestId = requestId;
     }
 
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
     public String getExceptionClass() {
         return exceptionClass;
     }
@@ -117,4 +191,28 @@ public class Event {
     public void setExceptionClass(String exceptionClass) {
         this.exceptionClass = exceptionClass;
     }
+
+    private static class RawLines extends AbstractList<String> implements RandomAccess {
+        private final ArrayList<String> own;
+        private final StackTraceTable.StackTrace trace;
+        private final int start;
+
+        RawLines(ArrayList<String> own, StackTraceTable.StackTrace trace, int start) {
+            this.own = own;
+            this.trace = trace;
+            this.start = start;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < start) return own.get(index);
+            if (index < start + trace.size()) return trace.get(index - start);
+            return own.get(index - trace.size());
+        }
+
+        @Override
+        public int size() {
+            return own.size() + trace.size();
+        }
+    }
 }
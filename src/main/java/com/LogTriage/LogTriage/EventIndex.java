@@ -0,0 +1,102 @@
+package com.LogTriage.LogTriage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A parsed event list plus the lookups LogAnalyzer needs to build windows without scanning:
+ * requestId -> event positions, and event -> position.
+ * Use it as the LogParser sink (LogParser.parseIndexed) so it is built in the same pass as parsing,
+ * then ask as many questions against it as needed.
+ */
+public class EventIndex implements Consumer<Event> {
+
+    private final ArrayList<Event> events = new ArrayList<>();
+    private final HashMap<String, Positions> byRequestId = new HashMap<>();
+    // Only built if an event's own position does not point into this index (e.g. a filtered list)
+    private IdentityHashMap<Event, Integer> foreignPositions;
+
+    public static EventIndex of(List<Event> events) {
+        EventIndex index = new EventIndex();
+        events.forEach(index);
+        return index;
+    }
+
+    @Override
+    public void accept(Event event) {
+        int position = events.size();
+        events.add(event);
+
+        String requestId = event.getRequestId();
+        if (requestId != null && !requestId.isEmpty()) {
+            byRequestId.computeIfAbsent(requestId, k -> new Positions()).add(position);
+        }
+    }
+
+    public ArrayList<Event> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public Event get(int position) {
+        return events.get(position);
+    }
+
+    /**
+     * @return the event's position in this index, or -1 if it is not part of it
+     */
+    public int positionOf(Event event) {
+        int position = event.getPosition();
+        if (position >= 0 && position < events.size() && events.get(position) == event) {
+            return position;
+        }
+
+        if (foreignPositions == null) {
+            foreignPositions = new IdentityHashMap<>(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                foreignPositions.put(events.get(i), i);
+            }
+        }
+        Integer found = foreignPositions.get(event);
+        return found == null ? -1 : found;
+    }
+
+    /**
+     * All events carrying this requestId, in file order. Costs O(group size).
+     */
+    public ArrayList<Event> requestGroup(String requestId) {
+        ArrayList<Event> group = new ArrayList<>();
+        Positions positions = byRequestId.get(requestId);
+        if (positions != null) {
+            group.ensureCapacity(positions.size);
+            for (int i = 0; i < positions.size; i++) {
+                group.add(events.get(positions.values[i]));
+            }
+        }
+        return group;
+    }
+
+    public int requestIdCount() {
+        return byRequestId.size();
+    }
+
+    // Growable int list, avoids boxing one Integer per event
+    private static class Positions {
+        int[] values = new int[4];
+        int size;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.LogTriage.LogTriage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes an event's anchor rank once, when the parser completes it, as a small packed int:
+ *
+ *   bits 2-3  level score (ERROR 3, WARN 2, INFO 1, anything else 0)
+ *   bit 1     has an exception class
+ *   bit 0     has a stack frame in one of our packages ("at com.acme.Foo.bar(...)")
+ *
+ * so the anchor selection, top-K and sorting in LogAnalyzer compare two ints instead of re-reading the level and
+ * rescanning raw lines on every comparison. Greater is more important, in the same order as the old field-by-field
+ * comparison.
+ *
+ * "Our packages" are a list of prefixes (default "com.") compiled into a trie, so a frame is tested against all of
+ * them in one walk, however many there are. Set them with --app-packages / logtriage.triage.app-packages.
+ */
+public class EventRanker {
+
+    public static final String DEFAULT_APP_PACKAGES = "com.";
+
+    /** Rank of an ERROR with an exception and an app frame: nothing beats it. */
+    public static final int TOP_RANK = 0b1111;
+
+    private static final String FRAME_PREFIX = "at ";
+
+    private static volatile EventRanker defaultRanker;
+
+    private final List<String> appPackages;
+    private final Node root = new Node();
+
+    private EventRanker(List<String> appPackages) {
+        this.appPackages = List.copyOf(appPackages);
+        for (String prefix : this.appPackages) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.childOrAdd(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * @param appPackages comma-separated package prefixes, e.g. "com.acme.,org.acme.billing."
+     */
+    public static EventRanker of(String appPackages) {
+        ArrayList<String> prefixes = new ArrayList<>();
+        for (String prefix : appPackages.split(",")) {
+            String trimmed = prefix.trim();
+            if (!trimmed.isEmpty()) prefixes.add(trimmed);
+        }
+        if (prefixes.isEmpty()) throw new IllegalArgumentException("No app package prefix in '" + appPackages + "'");
+        return new EventRanker(prefixes);
+    }
+
+    /**
+     * The ranker for DEFAULT_APP_PACKAGES, unless replaced with setDefault.
+     */
+    public static EventRanker getDefault() {
+        EventRanker ranker = defaultRanker;
+        if (ranker == null) {
+            synchronized (EventRanker.class) {
+                if (defaultRanker == null) {
+                    defaultRanker = of(DEFAULT_APP_PACKAGES);
+                }
+                ranker = defaultRanker;
+            }
+        }
+        return ranker;
+    }
+
+    public static void setDefault(EventRanker ranker) {
+        defaultRanker = ranker;
+    }
+
+    public List<String> getAppPackages() {
+        return appPackages;
+    }
+
+    public int rankOf(Event event) {
+        int rank = levelScore(event.getLevel()) << 2;
+        if (event.getExceptionClass() != null) rank |= 2;
+        if (hasAppFrame(event)) rank |= 1;
+        return rank;
+    }
+
+    /**
+     * Case-insensitive without upper-casing a copy: parsed levels are already upper case and hit the switch.
+     */
+    static int levelScore(String level) {
+        if (level == null) return 0;
+        switch (level) {
+            case "ERROR": return 3;
+            case "WARN": return 2;
+            case "INFO": return 1;
+            case "DEBUG": return 0;
+        }
+        if (level.equalsIgnoreCase("ERROR")) return 3;
+        if (level.equalsIgnoreCase("WARN")) return 2;
+        if (level.equalsIgnoreCase("INFO")) return 1;
+        return 0;
+    }
+
+    boolean hasAppFrame(Event event) {
+        List<String> lines = event.getRawLines();
+        if (lines == null) return false;
+
+        // A shared stack trace is checked once for all the events that carry it
+        for (String line : event.getOwnLines()) {
+            if (hasAppFrame(line)) return true;
+        }
+        StackTraceTable.StackTrace trace = event.getStackTrace();
+        return trace != null && trace.hasAppFrame(this);
+    }
+
+    /**
+     * "at " anywhere in the line, followed by one of the prefixes.
+     */
+    boolean hasAppFrame(String line) {
+        int at = line.indexOf(FRAME_PREFIX);
+        while (at >= 0) {
+            if (matchesPrefix(line, at + FRAME_PREFIX.length())) return true;
+            at = line.indexOf(FRAME_PREFIX, at + 1);
+        }
+        return false;
+    }
+
+    private boolean matchesPrefix(String line, int from) {
+        Node node = root;
+        for (int i = from; i < line.length(); i++) {
+            node = node.child(line.charAt(i));
+            if (node == null) return false;
+            if (node.terminal) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Package names share long prefixes and branch little, so children are a short array scanned linearly.
+     */
+    private static class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        boolean terminal;
+
+        Node child(char c) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node childOrAdd(char c) {
+            Node existing = child(c);
+            if (existing != null) return existing;
+            int n = labels.length;
+            labels = Arrays.copyOf(labels, n + 1);
+            children = Arrays.copyOf(children, n + 1);
+            labels[n] = c;
+            children[n] = new Node();
+            return children[n];
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.LogTriage.LogTriage;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The parsed event stream of one log file, saved in a binary file that is read back through memory mapping,
+ * so re-triaging the same log skips LogParser entirely (see SnapshotCache).
+ *
+ * Layout, little work to read and no per-event objects until get(i):
+ *   header:      magic, version, source size / mtime / content hash, counts, section offsets, source path
+ *   lines:       every raw line as UTF-8, back to back (a line never crosses a PAGE_BYTES boundary)
+ *   records:     one fixed-width RECORD_BYTES record per event (timestamp millis, dictionary codes, line range)
+ *   line table:  offset + length of every line
+ *   dictionary:  threads, levels, loggers, request ids, exception classes... as length-prefixed UTF-8
+ * Like CompactEventStore, the message is not stored when it is a suffix of the header line.
+ */
+public class EventSnapshot implements Closeable {
+
+    static final int MAGIC = 0x4C544553; // "LTES"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 80;
+    private static final int RECORD_BYTES = 48;
+    private static final int LINE_ENTRY_BYTES = 12;
+    private static final long PAGE_BYTES = 1L << 30; // one mapping per GB, since a MappedByteBuffer is int-indexed
+
+    // Record field offsets
+    private static final int TIMESTAMP = 0;
+    private static final int THREAD = 8;
+    private static final int LEVEL = 12;
+    private static final int LOGGER = 16;
+    private static final int REQUEST_ID = 20;
+    private static final int EXCEPTION = 24;
+    private static final int MESSAGE_START = 28;   // offset of the message in the header line, -1 if detached
+    private static final int MESSAGE = 32;         // dictionary code of a detached message
+    private static final int RAW_TIMESTAMP = 36;   // dictionary code of a timestamp that is not a valid date
+    private static final int FIRST_LINE = 40;
+    private static final int LINE_COUNT = 44;
+
+    private final FileChannel channel;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long contentHash;
+    private final String sourcePath;
+    private final int size;
+    private final Region lines;
+    private final Region records;
+    private final Region lineTable;
+    private final String[] dictionary;
+    // Events of one snapshot share their stack traces, like those of one LogParser
+    private final StackTraceTable stackTraces = new StackTraceTable();
+
+    private EventSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not an event snapshot (or an unsupported version)");
+        }
+        this.sourceSize = header.getLong(8);
+        this.sourceModified = header.getLong(16);
+        this.contentHash = header.getLong(24);
+        this.size = header.getInt(32);
+        int lineCount = header.getInt(36);
+        long linesOffset = header.getLong(40);
+        long recordsOffset = header.getLong(48);
+        long lineTableOffset = header.getLong(56);
+        long dictionaryOffset = header.getLong(64);
+        int dictionarySize = header.getInt(72);
+
+        ByteBuffer path = ByteBuffer.allocate(header.getInt(76));
+        readFully(channel, path, HEADER_BYTES);
+        this.sourcePath = new String(path.array(), StandardCharsets.UTF_8);
+
+        this.lines = new Region(channel, linesOffset, recordsOffset - linesOffset, 1);
+        this.records = new Region(channel, recordsOffset, (long) size * RECORD_BYTES, RECORD_BYTES);
+        this.lineTable = new Region(channel, lineTableOffset, (long) lineCount * LINE_ENTRY_BYTES, LINE_ENTRY_BYTES);
+
+        ByteBuffer strings = ByteBuffer.allocate((int) (channel.size() - dictionaryOffset));
+        readFully(channel, strings, dictionaryOffset);
+        strings.flip();
+        this.dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            byte[] bytes = new byte[strings.getInt()];
+            strings.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Maps a snapshot file. Check matches() before trusting it for a given log.
+     */
+    public static EventSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new EventSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * True if the snapshot was taken from 'logFile' as it is now (same path, size, mtime and sampled content).
+     */
+    public boolean matches(Path logFile) throws IOException {
+        return sourcePath.equals(logFile.toAbsolutePath().normalize().toString())
+                && sourceSize == Files.size(logFile)
+                && sourceModified == Files.getLastModifiedTime(logFile).toMillis()
+                && contentHash == SnapshotCache.contentHash(logFile);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materialises event 'index' as a regular Event, exactly as LogParser produced it. Each call returns a fresh object.
+     */
+    public Event get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Event " + index + " of " + size);
+        }
+        long record = (long) index * RECORD_BYTES;
+        ByteBuffer page = records.page(record);
+        int at = records.within(record);
+
+        Event event = new Event();
+        event.setPosition(index);
+        long millis = page.getLong(at + TIMESTAMP);
+        event.setTimestamp(millis == Timestamps.INVALID ? decode(page.getInt(at + RAW_TIMESTAMP)) : Timestamps.format(millis));
+        event.setThread(decode(page.getInt(at + THREAD)));
+        event.setLevel(decode(page.getInt(at + LEVEL)));
+        event.setLogger(decode(page.getInt(at + LOGGER)));
+        event.setRequestId(decode(page.getInt(at + REQUEST_ID)));
+        event.setExceptionClass(decode(page.getInt(at + EXCEPTION)));
+
+        int firstLine = page.getInt(at + FIRST_LINE);
+        int lineCount = page.getInt(at + LINE_COUNT);
+        for (int i = 0; i < lineCount; i++) {
+            event.addRawLine(line(firstLine + i));
+        }
+        stackTraces.attach(event);
+
+        int messageStart = page.getInt(at + MESSAGE_START);
+        if (messageStart >= 0) {
+            event.setMessage(event.getRawLines().getFirst().substring(messageStart));
+        } else {
+            event.setMessage(decode(page.getInt(at + MESSAGE)));
+        }
+        return event;
+    }
+
+    /**
+     * Streams every event in order, like LogParser.parse(Path, sink).
+     * @return the number of events handed to the sink
+     */
+    public long forEach(Consumer<Event> sink) {
+        for (int i = 0; i < size; i++) {
+            sink.accept(get(i));
+        }
+        return size;
+    }
+
+    private String decode(int code) {
+        return code < 0 ? null : dictionary[code];
+    }
+
+    private String line(int lineIndex) {
+        long entry = (long) lineIndex * LINE_ENTRY_BYTES;
+        ByteBuffer table = lineTable.page(entry);
+        int at = lineTable.within(entry);
+        long offset = table.getLong(at);
+        int length = table.getInt(at + 8);
+
+        byte[] bytes = new byte[length];
+        lines.page(offset).get(lines.within(offset), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close(); // the mappings stay valid until they are garbage collected
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Event snapshot is truncated");
+            }
+        }
+    }
+
+    /**
+     * A section of the file mapped in pages of at most PAGE_BYTES, each holding whole units (records, lines...).
+     */
+    private static class Region {
+        private final long pageBytes;
+        private final MappedByteBuffer[] pages;
+
+        Region(FileChannel channel, long start, long length, int unit) throws IOException {
+            this.pageBytes = PAGE_BYTES / unit * unit;
+            int count = (int) ((length + pageBytes - 1) / pageBytes);
+            this.pages = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long from = i * pageBytes;
+                pages[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + from, Math.min(pageBytes, length - from));
+            }
+        }
+
+        ByteBuffer page(long position) {
+            return pages[(int) (position / pageBytes)];
+        }
+
+        int within(long position) {
+            return (int) (position % pageBytes);
+        }
+    }
+
+    /**
+     * Writes a snapshot while the events stream past (use it as, or next to, the parser's sink).
+     * Lines go straight to the target file; records and the line table are spooled to temp files
+     * and appended by finish(), so memory use does not grow with the log.
+     */
+    public static class Writer implements Consumer<Event>, Closeable {
+        private final Path target;
+        private final Path recordsSpool;
+        private final Path lineTableSpool;
+        private final DataOutputStream out;
+        private final DataOutputStream records;
+        private final DataOutputStream lineTable;
+        private final StringDictionary dictionary = new StringDictionary();
+        private final byte[] path;
+        private final long sourceSize;
+        private final long sourceModified;
+        private final long contentHash;
+
+        private long position;   // bytes written to 'out' so far
+        private int size;
+        private int lineCount;
+
+        /**
+         * @param target where the snapshot is written; the caller moves it into place after finish()
+         */
+        public Writer(Path target, Path logFile) throws IOException {
+            this.target = target;
+            this.recordsSpool = target.resolveSibling(target.getFileName() + ".records");
+            this.lineTableSpool = target.resolveSibling(target.getFileName() + ".lines");
+            this.path = logFile.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+            this.sourceSize = Files.size(logFile);
+            this.sourceModified = Files.getLastModifiedTime(logFile).toMillis();
+            this.contentHash = SnapshotCache.contentHash(logFile);
+
+            DataOutputStream out = null;
+            DataOutputStream records = null;
+            try {
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16));
+                records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordsSpool), 1 << 16));
+                this.lineTable = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(lineTableSpool), 1 << 16));
+            } catch (IOException e) {
+                // Don't leave open streams or spool files behind when the cache directory is full or read-only
+                if (out != null) out.close();
+                if (records != null) records.close();
+                deleteSpools();
+                throw e;
+            }
+            this.out = out;
+            this.records = records;
+
+            // Header is filled in by finish(); lines start 8-byte aligned after the path
+            out.write(new byte[HEADER_BYTES]);
+            out.write(path);
+            position = HEADER_BYTES + path.length;
+            pad((8 - position % 8) % 8);
+        }
+
+        private IOException failure; // first write error; later events are ignored and finish() reports it
+
+        /**
+         * Adds the event. A write error does not interrupt the parse feeding this writer, it fails finish().
+         */
+        @Override
+        public void accept(Event event) {
+            if (failure != null) return;
+            try {
+                append(event);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void append(Event event) throws IOException {
+            List<String> rawLines = event.getRawLines();
+            int firstLine = lineCount;
+            for (String line : rawLines) {
+                appendLine(line);
+            }
+
+            long millis = Timestamps.toEpochMillis(event.getTimestamp());
+            String message = event.getMessage();
+            String headerLine = rawLines.isEmpty() ? null : rawLines.getFirst();
+            boolean attached = message != null && headerLine != null && headerLine.endsWith(message);
+
+            // DataOutputStream is big-endian, like ByteBuffer's default order used when reading
+            records.writeLong(millis);
+            records.writeInt(dictionary.encode(event.getThread()));
+            records.writeInt(dictionary.encode(event.getLevel()));
+            records.writeInt(dictionary.encode(event.getLogger()));
+            records.writeInt(dictionary.encode(event.getRequestId()));
+            records.writeInt(dictionary.encode(event.getExceptionClass()));
+            records.writeInt(attached ? headerLine.length() - message.length() : -1);
+            records.writeInt(attached ? -1 : dictionary.encode(message));
+            records.writeInt(millis == Timestamps.INVALID ? dictionary.encode(event.getTimestamp()) : -1);
+            records.writeInt(firstLine);
+            records.writeInt(rawLines.size());
+            size++;
+        }
+
+        private void appendLine(String line) throws IOException {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            long linesStart = alignedStart();
+            long inRegion = position - linesStart;
+            if (inRegion / PAGE_BYTES != (inRegion + bytes.length - 1) / PAGE_BYTES && bytes.length > 0) {
+                pad(PAGE_BYTES - inRegion % PAGE_BYTES); // never let a line straddle two mappings
+                inRegion = position - linesStart;
+            }
+            out.write(bytes);
+            lineTable.writeLong(inRegion);
+            lineTable.writeInt(bytes.length);
+            position += bytes.length;
+            lineCount++;
+        }
+
+        private long alignedStart() {
+            long start = HEADER_BYTES + path.length;
+            return start + (8 - start % 8) % 8;
+        }
+
+        private void pad(long bytes) throws IOException {
+            byte[] zeros = new byte[(int) Math.min(bytes, 1 << 16)];
+            for (long left = bytes; left > 0; left -= zeros.length) {
+                out.write(zeros, 0, (int) Math.min(left, zeros.length));
+            }
+            position += bytes;
+        }
+
+        /**
+         * Appends records, line table and dictionary, then fills in the header.
+         */
+        public void finish() throws IOException {
+            if (failure != null) throw failure;
+            long linesOffset = alignedStart();
+            long recordsOffset = position;
+            records.close();
+            lineTable.close();
+            Files.copy(recordsSpool, out);
+            position += Files.size(recordsSpool);
+            long lineTableOffset = position;
+            Files.copy(lineTableSpool, out);
+            position += Files.size(lineTableSpool);
+
+            long dictionaryOffset = position;
+            for (int code = 0; code < dictionary.size(); code++) {
+                byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.close();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(0, MAGIC).putInt(4, VERSION)
+                    .putLong(8, sourceSize).putLong(16, sourceModified).putLong(24, contentHash)
+                    .putInt(32, size).putInt(36, lineCount)
+                    .putLong(40, linesOffset).putLong(48, recordsOffset)
+                    .putLong(56, lineTableOffset).putLong(64, dictionaryOffset)
+                    .putInt(72, dictionary.size()).putInt(76, path.length);
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(false);
+            }
+            deleteSpools();
+        }
+
+        /**
+         * Closes the streams and removes the spool files. Without a prior finish() the target is incomplete
+         * and must be deleted by the caller.
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+            records.close();
+            lineTable.close();
+            deleteSpools();
+        }
+
+        private void deleteSpools() throws IOException {
+            Files.deleteIfExists(recordsSpool);
+            Files.deleteIfExists(lineTableSpool);
+        }
+    }
+}
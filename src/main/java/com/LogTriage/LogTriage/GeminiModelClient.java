@@ -0,0 +1,92 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Calls the Gemini generateContent REST endpoint, asking for a JSON response.
+ * The API key (GEMINI_API_KEY in .env, see ConfigLoader) is only read on the first call; without one, every call
+ * fails with an IOException like any other failed model call.
+ */
+public class GeminiModelClient implements ModelClient {
+
+    public static final String DEFAULT_MODEL = "gemini-2.5-flash";
+
+    private static final String ENDPOINT = "https://generativelanguage.googleapis.com/v1beta/models/%s:generateContent";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(120);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    private final String model;
+
+    public GeminiModelClient() {
+        this(DEFAULT_MODEL);
+    }
+
+    public GeminiModelClient(String model) {
+        this.model = model;
+    }
+
+    @Override
+    public String complete(String prompt) throws IOException {
+        String apiKey = apiKey();
+        ObjectNode body = mapper.createObjectNode();
+        body.putArray("contents").addObject().putArray("parts").addObject().put("text", prompt);
+        body.putObject("generationConfig")
+                .put("temperature", 0)
+                .put("responseMimeType", "application/json");
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(String.format(ENDPOINT, model)))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("x-goog-api-key", apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body), StandardCharsets.UTF_8))
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + model);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException(model + " returned HTTP " + response.statusCode() + ": " + response.body());
+        }
+
+        // 1. candidates[0].content.parts[*].text, concatenated
+        JsonNode parts = mapper.readTree(response.body()).path("candidates").path(0).path("content").path("parts");
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : parts) {
+            text.append(part.path("text").asText());
+        }
+        if (text.isEmpty()) {
+            throw new IOException(model + " returned no text: " + response.body());
+        }
+        return text.toString();
+    }
+
+    private static String apiKey() throws IOException {
+        String key;
+        try {
+            key = ConfigLoader.getApiKey();
+        } catch (RuntimeException e) {
+            throw new IOException("No Gemini API key: " + e.getMessage(), e);
+        }
+        if (key == null || key.isBlank()) {
+            throw new IOException("No Gemini API key: GEMINI_API_KEY in .env is empty");
+        }
+        return key;
+    }
+}
@@ -0,0 +1,162 @@
+package com.LogTriage.LogTriage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decodes consecutive gzip members (RFC 1952) straight from a FileChannel, starting at any byte offset.
+ * Unlike GZIPInputStream it knows where each member ends in the compressed file, which is what lets
+ * ParallelGzipInputStream hand ranges of members to different threads and check that they line up.
+ * Every member's CRC32 and length are verified.
+ */
+class GzipMemberReader {
+
+    static final int ID1 = 0x1f;
+    static final int ID2 = 0x8b;
+    static final int DEFLATE = 8;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int RESERVED_FLAGS = 0xe0;
+    private static final int BLOCK_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final long size;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] input = new byte[BLOCK_BYTES];
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_BYTES);
+    private long headerStart = -1;
+
+    private long position;    // start of the next member while between members
+    private boolean inMember;
+    private long dataStart;   // first deflate byte of the current member
+    private long fed;         // deflate bytes handed to the inflater so far
+    private long memberOutput;
+    private int members;
+
+    GzipMemberReader(FileChannel channel, long size, long offset) {
+        this.channel = channel;
+        this.size = size;
+        this.position = offset;
+    }
+
+    /**
+     * Decompresses into 'b'. Returns 0 exactly when a member has just ended (so callers can stop on a boundary),
+     * and -1 when there are no more members (end of file, or trailing bytes that are not a gzip header).
+     * @throws ZipException if a member is corrupt, or the first member does not start with a gzip header
+     */
+    int read(byte[] b, int off, int len) throws IOException {
+        if (!inMember) {
+            if (position >= size || !startMember()) return -1;
+        }
+        while (true) {
+            int n;
+            try {
+                n = inflater.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                throw new ZipException("Corrupt gzip data at offset " + dataStart + ": " + e.getMessage());
+            }
+            if (n > 0) {
+                crc.update(b, off, n);
+                memberOutput += n;
+                return n;
+            }
+            if (inflater.finished()) {
+                endMember();
+                return 0;
+            }
+            if (inflater.needsDictionary()) {
+                throw new ZipException("Corrupt gzip data at offset " + dataStart + ": preset dictionary");
+            }
+            if (inflater.needsInput()) {
+                int read = channel.read(ByteBuffer.wrap(input), dataStart + fed);
+                if (read <= 0) throw new EOFException("Unexpected end of gzip member starting at " + dataStart);
+                inflater.setInput(input, 0, read);
+                fed += read;
+            }
+        }
+    }
+
+    boolean atBoundary() {
+        return !inMember;
+    }
+
+    /**
+     * Offset of the next member; only meaningful at a boundary.
+     */
+    long position() {
+        return position;
+    }
+
+    void close() {
+        inflater.end();
+    }
+
+    private boolean startMember() throws IOException {
+        long pos = position;
+        if (u8(pos) != ID1 || u8(pos + 1) != ID2 || u8(pos + 2) != DEFLATE || (u8(pos + 3) & RESERVED_FLAGS) != 0) {
+            if (members == 0) throw new ZipException("Not in GZIP format at offset " + pos);
+            return false; // trailing garbage, ignored like GZIPInputStream does
+        }
+        int flags = u8(pos + 3);
+        pos += 10;
+        if ((flags & FEXTRA) != 0) {
+            pos += 2 + (u8(pos) | u8(pos + 1) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            while (u8(pos++) != 0) { }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (u8(pos++) != 0) { }
+        }
+        if ((flags & FHCRC) != 0) {
+            pos += 2;
+        }
+
+        dataStart = pos;
+        fed = 0;
+        memberOutput = 0;
+        inflater.reset();
+        crc.reset();
+        inMember = true;
+        members++;
+        return true;
+    }
+
+    private void endMember() throws IOException {
+        long trailer = dataStart + inflater.getBytesRead();
+        long expectedCrc = u32(trailer);
+        long expectedSize = u32(trailer + 4);
+        if (expectedCrc != crc.getValue() || expectedSize != (memberOutput & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer at offset " + trailer);
+        }
+        position = trailer + 8;
+        inMember = false;
+    }
+
+    private long u32(long pos) throws IOException {
+        return (long) u8(pos) | (long) u8(pos + 1) << 8 | (long) u8(pos + 2) << 16 | (long) u8(pos + 3) << 24;
+    }
+
+    // Byte at an absolute offset, through a small window (headers and trailers only)
+    private int u8(long pos) throws IOException {
+        if (pos >= size) throw new EOFException("Unexpected end of gzip file at offset " + pos);
+        if (headerStart < 0 || pos < headerStart || pos >= headerStart + header.limit()) {
+            header.clear();
+            int read = channel.read(header, pos);
+            if (read <= 0) throw new EOFException("Unexpected end of gzip file at offset " + pos);
+            header.flip();
+            headerStart = pos;
+        }
+        return header.get((int) (pos - headerStart)) & 0xff;
+    }
+}
@@ -0,0 +1,168 @@
+package com.LogTriage.LogTriage;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hand-written recognizer for the LogParser header line:
+ *   "2026-01-07 14:23:45.102 [thread] LEVEL logger - message"
+ * It accepts exactly the same lines as LogParser's HEADER_PATTERN, but checks the fixed-width timestamp
+ * by character position and only records field offsets. Substrings are created on demand by the getters.
+ * One instance is reused for every line, so it is NOT thread-safe.
+ */
+public class HeaderScanner {
+
+    static final int TIMESTAMP_LENGTH = 23; // "yyyy-MM-dd HH:mm:ss.SSS"
+
+    private final Pattern fallbackPattern;
+
+    private String line;
+    private int threadStart;
+    private int threadEnd;
+    private int levelStart;
+    private int levelEnd;
+    private int loggerStart;
+    private int loggerEnd;
+    private int messageStart;
+    private int messageEnd;
+
+    /**
+     * @param fallbackPattern the reference regex, only used for the rare line that contains a line terminator
+     *                        (where '.' and '$' have special meaning)
+     */
+    public HeaderScanner(Pattern fallbackPattern) {
+        this.fallbackPattern = fallbackPattern;
+    }
+
+    /**
+     * @return true if the line is a header; the field getters are then valid until the next call
+     */
+    public boolean scan(String logLine) {
+        line = logLine;
+        if (!hasTimestampPrefix(logLine)) return false;
+        if (hasLineTerminator(logLine)) return scanWithRegex(logLine);
+
+        int n = logLine.length();
+        int i = skipSpaces(logLine, TIMESTAMP_LENGTH);
+        if (i == TIMESTAMP_LENGTH || i >= n || logLine.charAt(i) != '[') return false;
+
+        // The thread group is lazy: the FIRST ']' after which the rest of the line still matches wins
+        threadStart = i + 1;
+        for (int close = logLine.indexOf(']', threadStart); close >= 0; close = logLine.indexOf(']', close + 1)) {
+            if (scanTail(logLine, close + 1)) {
+                threadEnd = close;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Matches "\s+(\w+)\s+(\S+)\s+-\s+(.*)$" starting at 'i'. Every step is greedy and cannot backtrack.
+    private boolean scanTail(String s, int i) {
+        int n = s.length();
+
+        int start = i;
+        i = skipSpaces(s, i);
+        if (i == start) return false;
+
+        levelStart = i;
+        while (i < n && isWordChar(s.charAt(i))) i++;
+        if (i == levelStart) return false;
+        levelEnd = i;
+
+        start = i;
+        i = skipSpaces(s, i);
+        if (i == start) return false;
+
+        loggerStart = i;
+        while (i < n && !isSpace(s.charAt(i))) i++;
+        if (i == loggerStart) return false;
+        loggerEnd = i;
+
+        start = i;
+        i = skipSpaces(s, i);
+        if (i == start || i >= n || s.charAt(i) != '-') return false;
+        i++;
+
+        start = i;
+        i = skipSpaces(s, i);
+        if (i == start) return false;
+
+        messageStart = i;
+        messageEnd = n;
+        return true;
+    }
+
+    private boolean scanWithRegex(String logLine) {
+        Matcher matcher = fallbackPattern.matcher(logLine);
+        if (!matcher.find()) return false;
+        threadStart = matcher.start(2);
+        threadEnd = matcher.end(2);
+        levelStart = matcher.start(3);
+        levelEnd = matcher.end(3);
+        loggerStart = matcher.start(4);
+        loggerEnd = matcher.end(4);
+        messageStart = matcher.start(5);
+        messageEnd = matcher.end(5);
+        return true;
+    }
+
+    static boolean hasTimestampPrefix(String s) {
+        if (s.length() < TIMESTAMP_LENGTH) return false;
+        return isDigit(s.charAt(0)) && isDigit(s.charAt(1)) && isDigit(s.charAt(2)) && isDigit(s.charAt(3))
+                && s.charAt(4) == '-' && isDigit(s.charAt(5)) && isDigit(s.charAt(6))
+                && s.charAt(7) == '-' && isDigit(s.charAt(8)) && isDigit(s.charAt(9))
+                && s.charAt(10) == ' ' && isDigit(s.charAt(11)) && isDigit(s.charAt(12))
+                && s.charAt(13) == ':' && isDigit(s.charAt(14)) && isDigit(s.charAt(15))
+                && s.charAt(16) == ':' && isDigit(s.charAt(17)) && isDigit(s.charAt(18))
+                && s.charAt(19) == '.' && isDigit(s.charAt(20)) && isDigit(s.charAt(21)) && isDigit(s.charAt(22));
+    }
+
+    // The characters java.util.regex treats as line terminators for '.' and '$'
+    static boolean hasLineTerminator(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+        }
+        return false;
+    }
+
+    private static int skipSpaces(String s, int i) {
+        int n = s.length();
+        while (i < n && isSpace(s.charAt(i))) i++;
+        return i;
+    }
+
+    // Same sets as the regex classes \d, \s and \w (ASCII only, no UNICODE_CHARACTER_CLASS)
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    public String timestamp() {
+        return line.substring(0, TIMESTAMP_LENGTH);
+    }
+
+    public String thread() {
+        return line.substring(threadStart, threadEnd);
+    }
+
+    public String level() {
+        return line.substring(levelStart, levelEnd);
+    }
+
+    public String logger() {
+        return line.substring(loggerStart, loggerEnd);
+    }
+
+    public String message() {
+        return line.substring(messageStart, messageEnd);
+    }
+}
@@ -0,0 +1,96 @@
+package com.LogTriage.LogTriage;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of an incident across runs: exception class + top app frames (without line numbers) + caused-by classes.
+ * Two bundles with the same fingerprint are the same bug, even if timestamps, messages, request ids or
+ * line numbers (after a redeploy) differ.
+ */
+public final class IncidentFingerprint {
+
+    private static final Pattern LAMBDA = Pattern.compile("\\$\\$Lambda(\\$\\d+)?(/0x\\p{XDigit}+)?");
+    private static final Pattern ACCESSOR = Pattern.compile("(Generated\\w*Accessor)\\d+");
+    private static final Pattern PROXY = Pattern.compile("(\\$\\$\\w+?\\$\\$)\\p{XDigit}+"); // CGLIB / ByteBuddy
+
+    private final String canonical;
+    private final long hash;
+
+    private IncidentFingerprint(String canonical) {
+        this.canonical = canonical;
+        this.hash = hash64(canonical);
+    }
+
+    public static IncidentFingerprint of(LogBundle bundle) {
+        return of(bundle.getExceptionClass() != null ? bundle.getExceptionClass() : bundle.getIncidentTitle(),
+                bundle.getTopAppFrames(), bundle.getCausedByClasses());
+    }
+
+    static IncidentFingerprint of(String exceptionClass, List<String> topAppFrames, List<String> causedByClasses) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(exceptionClass == null ? "" : exceptionClass);
+        for (String frame : topAppFrames) {
+            sb.append("\n at ").append(normalizeFrame(frame));
+        }
+        for (String cause : causedByClasses) {
+            sb.append("\n caused by ").append(cause);
+        }
+        return new IncidentFingerprint(sb.toString());
+    }
+
+    /**
+     * "com.x.Foo$$Lambda$42/0x0000a.apply(Unknown Source)" -> "com.x.Foo$$Lambda.apply".
+     * Drops the source location and the numbering of generated classes, which changes from JVM to JVM.
+     */
+    static String normalizeFrame(String frame) {
+        int paren = frame.indexOf('(');
+        String method = paren >= 0 ? frame.substring(0, paren) : frame;
+        if (method.indexOf('$') < 0 && !method.contains("Accessor")) return method;
+
+        method = LAMBDA.matcher(method).replaceAll("\\$\\$Lambda");
+        method = ACCESSOR.matcher(method).replaceAll("$1");
+        return PROXY.matcher(method).replaceAll("$1");
+    }
+
+    /**
+     * Stable across JVMs and runs (unlike String.hashCode, 32 bits is too few for millions of incidents).
+     * FNV-1a over the UTF-16 chars, then the murmur3 finalizer to spread the bits. Never 0.
+     */
+    static long hash64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public String getCanonical() {
+        return canonical;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IncidentFingerprint other && hash == other.hash && canonical.equals(other.canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x", hash);
+    }
+}
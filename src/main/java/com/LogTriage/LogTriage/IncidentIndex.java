@@ -0,0 +1,405 @@
+package com.LogTriage.LogTriage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Persistent "have we seen this incident before?" table, shared by every run on the machine.
+ *
+ * The index file is a memory-mapped open-addressing hash table keyed by IncidentFingerprint hash:
+ *   header: magic, version, capacity, size, meta generation
+ *   slot:   fingerprint, firstSeen, lastSeen, count, metadata offset, metadata length, last sighting
+ * so a lookup is one probe sequence over mapped memory. The latest bundle JSON of each incident is appended to
+ * the meta file ("<index>.meta", then "<index>.meta.<generation>") and referenced by offset; it is only appended
+ * when it differs from the stored one. Older versions are never read again, so whenever the table is rewritten
+ * (it grows, or the meta file is mostly dead versions) the live metadata is copied to the next generation's meta
+ * file, and the atomic replacement of the table is what switches over to it.
+ * "Last sighting" is a hash of the anchor's source, timestamp and line (see LogBundle.getAnchorKey), so triaging
+ * the same log again, whole or just a --from/--to range of it, does not count the incident again. Only the latest
+ * sighting is remembered.
+ * A process holds an exclusive lock on "<index>.lock" (which, unlike the table and meta files, is never replaced)
+ * while it is open.
+ */
+public class IncidentIndex implements Closeable {
+
+    private static final int MAGIC = 0x4C544949; // "LTII"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 48;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final double MAX_LOAD = 0.7;
+    // Rewrite once the meta file is larger than this and mostly dead versions
+    private static final long COMPACT_MIN_META_BYTES = 1L << 20;
+    private static final int COMPACT_DEAD_RATIO = 2;
+
+    // Header field offsets
+    private static final int CAPACITY = 8;
+    private static final int SIZE = 12;
+    private static final int META_GENERATION = 16; // 0 in indexes written before compaction existed
+
+    // Slot field offsets
+    private static final int FINGERPRINT = 0;
+    private static final int FIRST_SEEN = 8;
+    private static final int LAST_SEEN = 16;
+    private static final int COUNT = 24;
+    private static final int META_OFFSET = 32;
+    private static final int META_LENGTH = 40;
+    private static final int LAST_SIGHTING = 44; // 0 = unknown (indexes written before it existed)
+
+    private final Path indexFile;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private MappedByteBuffer table;
+    private int capacity;
+    private int size;
+    private FileChannel metaChannel;
+    private int metaGeneration;
+    private long liveMetaBytes; // metadata the slots still point to
+
+    private IncidentIndex(Path indexFile, FileChannel lockChannel, FileLock lock) {
+        this.indexFile = indexFile;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Opens (or creates) the index at 'indexFile'. Blocks while another process has it open.
+     */
+    public static IncidentIndex open(Path indexFile) throws IOException {
+        Path parent = indexFile.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        FileChannel lockChannel = FileChannel.open(indexFile.resolveSibling(indexFile.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            IncidentIndex index = new IncidentIndex(indexFile, lockChannel, lockChannel.lock());
+            index.load();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close(); // also releases the lock
+            throw e;
+        }
+    }
+
+    private Path metaFile(int generation) {
+        String name = indexFile.getFileName() + ".meta";
+        return indexFile.resolveSibling(generation == 0 ? name : name + "." + generation);
+    }
+
+    private void load() throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                initialize(channel, INITIAL_CAPACITY, 0);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException(indexFile + " is not an incident index (or has an unsupported version)");
+            }
+            int mappedCapacity = mapped.getInt(CAPACITY);
+            if ((long) HEADER_BYTES + (long) mappedCapacity * SLOT_BYTES != channel.size()) {
+                throw new IOException(indexFile + " is truncated");
+            }
+            this.table = mapped;
+            this.capacity = mappedCapacity;
+            this.size = mapped.getInt(SIZE);
+            this.metaGeneration = mapped.getInt(META_GENERATION);
+        }
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table.getLong(offset(slot) + FINGERPRINT) != 0) {
+                liveMetaBytes += table.getInt(offset(slot) + META_LENGTH);
+            }
+        }
+        metaChannel = FileChannel.open(metaFile(metaGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Left behind if a process died between switching to this generation and deleting the previous one
+        if (metaGeneration > 0) {
+            Files.deleteIfExists(metaFile(metaGeneration - 1));
+        }
+    }
+
+    private static void initialize(FileChannel target, int capacity, int metaGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(0, MAGIC).putInt(4, VERSION).putInt(CAPACITY, capacity).putInt(SIZE, 0)
+                .putInt(META_GENERATION, metaGeneration);
+        target.write(header, 0);
+        // Extend to full size; the slots read back as zeros (= empty)
+        target.write(ByteBuffer.allocate(1), HEADER_BYTES + (long) capacity * SLOT_BYTES - 1);
+    }
+
+    /**
+     * What the index knows about 'fingerprint', or null if it was never recorded. O(1).
+     */
+    public Entry lookup(IncidentFingerprint fingerprint) throws IOException {
+        int slot = find(fingerprint.getHash());
+        return slot < 0 ? null : read(slot);
+    }
+
+    public boolean isKnown(IncidentFingerprint fingerprint) {
+        return find(fingerprint.getHash()) >= 0;
+    }
+
+    /**
+     * Records one more sighting of the bundle's incident and stores the bundle as its latest metadata.
+     * First/last seen come from the bundle's log timestamps (now, if they don't parse).
+     * Recording the same sighting again (same anchor as last time) does not change the count.
+     * @return the entry after the update; Entry.isNew() tells whether this was the first sighting,
+     *         Entry.isAlreadyRecorded() whether this very sighting had been recorded before
+     */
+    public Entry record(LogBundle bundle) throws IOException {
+        return record(IncidentFingerprint.of(bundle), bundle);
+    }
+
+    public Entry record(IncidentFingerprint fingerprint, LogBundle bundle) throws IOException {
+        long first = Timestamps.toEpochMillis(bundle.getFirstTimestamp());
+        long last = Timestamps.toEpochMillis(bundle.getLastTimestamp());
+        if (first == Timestamps.INVALID) first = System.currentTimeMillis();
+        if (last == Timestamps.INVALID) last = first;
+
+        long hash = fingerprint.getHash();
+        int sighting = sightingHash(bundle.getAnchorKey());
+        int slot = probe(hash);
+
+        // 1. Metadata first, so a crash never leaves a slot pointing past the end of the meta file
+        byte[] metadata = bundle.toString().getBytes(StandardCharsets.UTF_8);
+        long metaOffset;
+        if (slot >= 0 && Arrays.equals(metadata, readMetadata(slot))) {
+            metaOffset = table.getLong(offset(slot) + META_OFFSET);
+        } else {
+            metaOffset = metaChannel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(metadata);
+            while (buffer.hasRemaining()) {
+                metaChannel.write(buffer, metaOffset + buffer.position());
+            }
+        }
+
+        // 2. Slot
+        boolean alreadyRecorded = false;
+        if (slot < 0) {
+            if (size + 1 > capacity * MAX_LOAD) {
+                rewrite(capacity * 2, metaOffset, metadata.length);
+                metaOffset = metaChannel.size() - metadata.length; // carried over as the last live record
+                slot = probe(hash);
+            }
+            slot = -slot - 1;
+            int base = offset(slot);
+            table.putLong(base + FIRST_SEEN, first);
+            table.putLong(base + LAST_SEEN, last);
+            table.putLong(base + COUNT, 1);
+            table.putLong(base + FINGERPRINT, hash);
+            table.putInt(SIZE, ++size);
+        } else {
+            int base = offset(slot);
+            liveMetaBytes -= table.getInt(base + META_LENGTH);
+            table.putLong(base + FIRST_SEEN, Math.min(first, table.getLong(base + FIRST_SEEN)));
+            table.putLong(base + LAST_SEEN, Math.max(last, table.getLong(base + LAST_SEEN)));
+            alreadyRecorded = table.getInt(base + LAST_SIGHTING) == sighting;
+            if (!alreadyRecorded) {
+                table.putLong(base + COUNT, table.getLong(base + COUNT) + 1);
+            }
+        }
+        int base = offset(slot);
+        table.putLong(base + META_OFFSET, metaOffset);
+        table.putInt(base + META_LENGTH, metadata.length);
+        table.putInt(base + LAST_SIGHTING, sighting);
+        liveMetaBytes += metadata.length;
+
+        Entry entry = read(slot, alreadyRecorded);
+        if (metaChannel.size() > COMPACT_MIN_META_BYTES && metaChannel.size() > COMPACT_DEAD_RATIO * liveMetaBytes) {
+            rewrite(capacity, -1, 0);
+        }
+        return entry;
+    }
+
+    // Never 0, which marks "unknown"
+    private static int sightingHash(String anchorKey) {
+        long h = IncidentFingerprint.hash64(anchorKey);
+        int folded = (int) (h ^ (h >>> 32));
+        return folded == 0 ? 1 : folded;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Flushes the mapped table and metadata to disk.
+     */
+    public void force() throws IOException {
+        table.force();
+        metaChannel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            try {
+                metaChannel.close();
+            } finally {
+                try {
+                    lock.release();
+                } finally {
+                    lockChannel.close();
+                }
+            }
+        }
+    }
+
+    private int find(long hash) {
+        int slot = probe(hash);
+        return slot >= 0 ? slot : -1;
+    }
+
+    /**
+     * Linear probing. Returns the slot holding 'hash', or -(empty slot) - 1 where it would go.
+     */
+    private int probe(long hash) {
+        int mask = capacity - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (true) {
+            long stored = table.getLong(offset(slot) + FINGERPRINT);
+            if (stored == hash) return slot;
+            if (stored == 0) return -slot - 1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Rehashes the table into 'newCapacity' slots and copies the live metadata into the next generation's meta
+     * file, both forced to disk before the index file is atomically replaced; until then the old pair stays valid.
+     * @param pendingOffset metadata appended for a record() still in progress (copied last), or -1
+     */
+    private void rewrite(int newCapacity, long pendingOffset, int pendingLength) throws IOException {
+        int newGeneration = metaGeneration + 1;
+        Path newMetaFile = metaFile(newGeneration);
+        FileChannel newMeta = FileChannel.open(newMetaFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".grow");
+        try {
+            long written = 0;
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                initialize(target, newCapacity, newGeneration);
+                MappedByteBuffer rewritten = target.map(FileChannel.MapMode.READ_WRITE, 0, target.size());
+                int mask = newCapacity - 1;
+                byte[] slotBytes = new byte[SLOT_BYTES];
+                for (int slot = 0; slot < capacity; slot++) {
+                    long hash = table.getLong(offset(slot) + FINGERPRINT);
+                    if (hash == 0) continue;
+                    int to = (int) (hash ^ (hash >>> 32)) & mask;
+                    while (rewritten.getLong(offset(to) + FINGERPRINT) != 0) {
+                        to = (to + 1) & mask;
+                    }
+                    table.get(offset(slot), slotBytes);
+                    rewritten.put(offset(to), slotBytes);
+                    rewritten.putLong(offset(to) + META_OFFSET, written);
+                    written += copyMetadata(table.getLong(offset(slot) + META_OFFSET),
+                            table.getInt(offset(slot) + META_LENGTH), newMeta, written);
+                }
+                if (pendingOffset >= 0) {
+                    copyMetadata(pendingOffset, pendingLength, newMeta, written);
+                }
+                rewritten.putInt(SIZE, size);
+                newMeta.force(false);
+                rewritten.force();
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            newMeta.close();
+            Files.deleteIfExists(newMetaFile);
+            throw e;
+        }
+
+        try (FileChannel reopened = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.table = reopened.map(FileChannel.MapMode.READ_WRITE, 0, reopened.size());
+        }
+        this.capacity = newCapacity;
+        metaChannel.close();
+        Files.deleteIfExists(metaFile(metaGeneration));
+        this.metaChannel = newMeta;
+        this.metaGeneration = newGeneration;
+    }
+
+    private long copyMetadata(long from, int length, FileChannel target, long to) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            long n = metaChannel.transferTo(from + copied, length - copied, target.position(to + copied));
+            if (n <= 0) throw new IOException(metaFile(metaGeneration) + " is truncated");
+            copied += n;
+        }
+        return copied;
+    }
+
+    private Entry read(int slot) throws IOException {
+        return read(slot, false);
+    }
+
+    private Entry read(int slot, boolean alreadyRecorded) throws IOException {
+        int base = offset(slot);
+        return new Entry(table.getLong(base + FINGERPRINT), table.getLong(base + FIRST_SEEN),
+                table.getLong(base + LAST_SEEN), table.getLong(base + COUNT),
+                new String(readMetadata(slot), StandardCharsets.UTF_8), alreadyRecorded);
+    }
+
+    private byte[] readMetadata(int slot) throws IOException {
+        int base = offset(slot);
+        long metaOffset = table.getLong(base + META_OFFSET);
+        ByteBuffer metadata = ByteBuffer.allocate(table.getInt(base + META_LENGTH));
+        while (metadata.hasRemaining()) {
+            if (metaChannel.read(metadata, metaOffset + metadata.position()) < 0) {
+                throw new IOException(metaFile(metaGeneration) + " is truncated");
+            }
+        }
+        return metadata.array();
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    public static class Entry {
+        private final long fingerprint;
+        private final long firstSeen;
+        private final long lastSeen;
+        private final long count;
+        private final String bundleJson;
+        private final boolean alreadyRecorded;
+
+        Entry(long fingerprint, long firstSeen, long lastSeen, long count, String bundleJson, boolean alreadyRecorded) {
+            this.fingerprint = fingerprint;
+            this.firstSeen = firstSeen;
+            this.lastSeen = lastSeen;
+            this.count = count;
+            this.bundleJson = bundleJson;
+            this.alreadyRecorded = alreadyRecorded;
+        }
+
+        public long getFingerprint() { return fingerprint; }
+        public long getFirstSeen() { return firstSeen; }   // epoch millis, see Timestamps
+        public long getLastSeen() { return lastSeen; }
+        public long getCount() { return count; }
+        public String getBundleJson() { return bundleJson; } // latest recorded bundle
+        public boolean isNew() { return count == 1 && !alreadyRecorded; }
+        public boolean isAlreadyRecorded() { return alreadyRecorded; } // record() saw this same sighting before
+
+        @Override
+        public String toString() {
+            return String.format("%016x seen %d time(s), first %s, last %s",
+                    fingerprint, count, Timestamps.format(firstSeen), Timestamps.format(lastSeen));
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.LogTriage.LogTriage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass version of LogAnalyzer.triage.
+ * Events are pushed one at a time (e.g. straight from LogParser) and are not kept unless they can
+ * still end up in the final window. Until a top-ranked champion is found that still means every event with a
+ * requestId, so input larger than the heap needs a bounded constructor (a cap on groups and retained events or bytes).
+ * finish() returns the same LogBundle that LogAnalyzer.triage would build from the full list.
+ * It can also be called mid-stream (e.g. by LogFollower) and more events accepted afterwards.
+ */
+public class IncrementalTriage implements Consumer<Event> {
+
+    public static final int DEFAULT_MAX_TRACKED_REQUEST_IDS = 50_000;
+    public static final long DEFAULT_MAX_RETAINED_EVENTS = 100_000;
+
+    // Same as the +/- 10 events used by LogAnalyzer.getWindow
+    private static final int CONTEXT_EVENTS = 10;
+
+    private final LogAnalyzer analyzer;
+
+    private Event champion;
+    private boolean championIsFinal;
+
+    // The last CONTEXT_EVENTS events seen, oldest first
+    private final ArrayDeque<Event> recent = new ArrayDeque<>(CONTEXT_EVENTS);
+    // Context captured around the current champion (only used when it has no requestId)
+    private ArrayList<Event> before = new ArrayList<>();
+    private ArrayList<Event> after = new ArrayList<>();
+
+    // requestId -> events. Every group may still become the anchor's window until the champion is final.
+    private final HashMap<String, ArrayList<Event>> requestGroups;
+    private final long maxRetainedEvents;
+    private final long maxRetainedBytes;
+    private long retainedEvents; // events in requestGroups
+    private long retainedBytes;  // their size, see LogParser.bytesOf
+
+    private long eventsSeen;
+    private Event lastAccepted;
+    private long lastAcceptedBytes; // counted in retainedBytes while it is in a group, -1 if not
+
+    public IncrementalTriage() {
+        this(new LogAnalyzer());
+    }
+
+    /**
+     * Exact, but until a top-ranked event (see LogAnalyzer.isTopRanked) becomes the final champion, every event
+     * with a requestId is kept. Use a bounded constructor for input that may not fit in the heap.
+     */
+    public IncrementalTriage(LogAnalyzer analyzer) {
+        this.analyzer = analyzer;
+        this.requestGroups = new HashMap<>();
+        this.maxRetainedEvents = Long.MAX_VALUE;
+        this.maxRetainedBytes = Long.MAX_VALUE;
+    }
+
+    /**
+     * For unbounded streams (follow mode): keeps at most maxTrackedRequestIds groups and evicts the least recently
+     * active one. The champion's own group is never evicted. An evicted group that later becomes the anchor's
+     * only contains the events seen after eviction, so the result is no longer exact.
+     */
+    public IncrementalTriage(LogAnalyzer analyzer, int maxTrackedRequestIds) {
+        this(analyzer, maxTrackedRequestIds, Long.MAX_VALUE);
+    }
+
+    /**
+     * Also keeps at most maxRetainedEvents events in the groups: beyond that, the least recently active groups
+     * other than the champion's are evicted (same caveat as above). If the champion's group alone holds more,
+     * accept() throws RetainedEventsExceededException.
+     */
+    public IncrementalTriage(LogAnalyzer analyzer, int maxTrackedRequestIds, long maxRetainedEvents) {
+        this(analyzer, maxTrackedRequestIds, maxRetainedEvents, Long.MAX_VALUE);
+    }
+
+    /**
+     * Also keeps at most maxRetainedBytes of event text in the groups (see LogParser.bytesOf), with the same
+     * eviction, so a few huge events cannot fill the heap either.
+     */
+    public IncrementalTriage(LogAnalyzer analyzer, int maxTrackedRequestIds, long maxRetainedEvents, long maxRetainedBytes) {
+        this.analyzer = analyzer;
+        this.maxRetainedEvents = maxRetainedEvents;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.requestGroups = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArrayList<Event>> eldest) {
+                if (size() <= maxTrackedRequestIds) return false;
+                // With a single tracked id the champion's group can be the eldest: keep it, one group over the cap
+                if (champion != null && eldest.getKey().equals(champion.getRequestId())) return false;
+                dropped(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void accept(Event event) {
+        eventsSeen++;
+        lastAccepted = event;
+        lastAcceptedBytes = -1;
+        long started = TriageMetrics.start();
+
+        // 1. Correlation groups (touch the champion's group first so LRU eviction never picks it)
+        if (champion != null && champion.getRequestId() != null) {
+            requestGroups.get(champion.getRequestId());
+        }
+        String requestId = event.getRequestId();
+        if (requestId != null && !requestId.isEmpty()) {
+            if (!championIsFinal) {
+                retain(requestGroups.computeIfAbsent(requestId, k -> new ArrayList<>()), event);
+            } else if (requestId.equals(champion.getRequestId())) {
+                retain(requestGroups.get(requestId), event);
+            }
+        }
+
+        // 2. Champion (same rule as selectAnchor: only a strictly more important event takes over)
+        long selecting = TriageMetrics.start();
+        if (champion == null || (!championIsFinal && analyzer.isMoreImportant(event, champion))) {
+            crown(event);
+        } else if (after.size() < CONTEXT_EVENTS) {
+            after.add(event);
+        }
+        long selected = TriageMetrics.start();
+
+        // 3. Ring buffer of preceding context
+        if (!championIsFinal) {
+            if (recent.size() == CONTEXT_EVENTS) {
+                recent.removeFirst();
+            }
+            recent.addLast(event);
+        }
+
+        // 4. Memory budget (after crowning, so a new champion's group is the one kept)
+        if (overBudget()) {
+            evictGroups();
+        }
+
+        // Champion selection is LogAnalyzer's selectAnchor stage, keeping the groups and context its getWindow
+        if (started != 0) {
+            TriageMetrics.record(TriageMetrics.Stage.SELECT_ANCHOR, selected - selecting);
+            TriageMetrics.record(TriageMetrics.Stage.GET_WINDOW, (selecting - started) + (System.nanoTime() - selected));
+        }
+    }
+
+    private void retain(ArrayList<Event> group, Event event) {
+        group.add(event);
+        retainedEvents++;
+        if (maxRetainedBytes != Long.MAX_VALUE) {
+            lastAcceptedBytes = LogParser.bytesOf(event);
+            retainedBytes += lastAcceptedBytes;
+        }
+    }
+
+    private void dropped(ArrayList<Event> group) {
+        retainedEvents -= group.size();
+        retainedBytes -= bytesOf(group);
+        if (lastAcceptedBytes >= 0 && group.contains(lastAccepted)) lastAcceptedBytes = -1;
+    }
+
+    private long bytesOf(ArrayList<Event> group) {
+        if (maxRetainedBytes == Long.MAX_VALUE) return 0;
+        long bytes = 0;
+        for (Event event : group) {
+            bytes += LogParser.bytesOf(event);
+        }
+        return bytes;
+    }
+
+    private boolean overBudget() {
+        return retainedEvents > maxRetainedEvents || retainedBytes > maxRetainedBytes;
+    }
+
+    private void evictGroups() {
+        String keep = champion.getRequestId();
+        Iterator<Map.Entry<String, ArrayList<Event>>> groups = requestGroups.entrySet().iterator();
+        while (overBudget() && groups.hasNext()) {
+            Map.Entry<String, ArrayList<Event>> group = groups.next(); // least recently active first
+            if (group.getKey().equals(keep)) continue;
+            dropped(group.getValue());
+            groups.remove();
+        }
+        if (retainedEvents > maxRetainedEvents) {
+            throw new RetainedEventsExceededException(maxRetainedEvents, "events");
+        }
+        if (retainedBytes > maxRetainedBytes) {
+            throw new RetainedEventsExceededException(maxRetainedBytes, "bytes");
+        }
+    }
+
+    /**
+     * Re-ranks the last accepted event after it changed in place (LogFollower reopens an event it completed early
+     * when more of its lines arrive; lines are only ever added, so its rank can only go up). The result is the same
+     * as if it had been accepted in its final form.
+     */
+    public void update(Event event) {
+        if (event != lastAccepted) {
+            throw new IllegalArgumentException("Only the last accepted event can be updated");
+        }
+        if (lastAcceptedBytes >= 0) {
+            long bytes = LogParser.bytesOf(event);
+            retainedBytes += bytes - lastAcceptedBytes;
+            lastAcceptedBytes = bytes;
+        }
+        long started = TriageMetrics.start();
+        if (!championIsFinal) {
+            if (event == champion) {
+                if (analyzer.isTopRanked(event)) makeFinal(event);
+            } else if (analyzer.isMoreImportant(event, champion)) {
+                // As in accept: crowned with the events before it, then (unless final) it joins the ring buffer
+                recent.removeLast();
+                crown(event);
+                if (!championIsFinal) recent.addLast(event);
+            }
+        }
+        TriageMetrics.stop(TriageMetrics.Stage.SELECT_ANCHOR, started);
+        if (overBudget()) {
+            evictGroups();
+        }
+    }
+
+    private void crown(Event event) {
+        champion = event;
+        before = new ArrayList<>(recent);
+        after = new ArrayList<>();
+
+        if (analyzer.isTopRanked(event)) {
+            makeFinal(event);
+        }
+    }
+
+    // Nothing can beat this event any more, so only its own group is still worth keeping.
+    private void makeFinal(Event event) {
+        championIsFinal = true;
+        recent.clear();
+        String requestId = event.getRequestId();
+        ArrayList<Event> ownGroup = (requestId == null) ? null : requestGroups.get(requestId);
+        if (lastAcceptedBytes >= 0 && (ownGroup == null || !ownGroup.contains(lastAccepted))) {
+            lastAcceptedBytes = -1;
+        }
+        requestGroups.clear();
+        retainedEvents = 0;
+        retainedBytes = 0;
+        if (ownGroup != null) {
+            requestGroups.put(requestId, ownGroup);
+            retainedEvents = ownGroup.size();
+            retainedBytes = bytesOf(ownGroup);
+        }
+    }
+
+    /**
+     * Builds the bundle for everything accepted so far.
+     * @return null if no events were seen (same contract as LogAnalyzer.triage)
+     */
+    public LogBundle finish() {
+        if (champion == null) return null;
+        long started = TriageMetrics.start();
+        ArrayList<Event> window = currentWindow();
+        TriageMetrics.stop(TriageMetrics.Stage.GET_WINDOW, started);
+        return analyzer.buildBundle(champion, window);
+    }
+
+    private ArrayList<Event> currentWindow() {
+        String requestId = champion.getRequestId();
+        if (requestId != null && !requestId.isEmpty()) {
+            return new ArrayList<>(requestGroups.get(requestId));
+        }
+
+        ArrayList<Event> window = new ArrayList<>(before.size() + 1 + after.size());
+        window.addAll(before);
+        window.add(champion);
+        window.addAll(after);
+        return window;
+    }
+
+    /**
+     * True once the champion has its full trailing context (the next 10 events).
+     */
+    public boolean isWindowClosed() {
+        return champion != null && after.size() == CONTEXT_EVENTS;
+    }
+
+    public Event getAnchor() {
+        return champion;
+    }
+
+    public long getEventsSeen() {
+        return eventsSeen;
+    }
+
+    /** Events currently held in request-id groups. */
+    public long getRetainedEvents() {
+        return retainedEvents;
+    }
+
+    /** Size of those events, if a byte cap was given (0 otherwise). */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * The anchor's own request-id group is larger than the memory budget.
+     */
+    public static class RetainedEventsExceededException extends RuntimeException {
+        RetainedEventsExceededException(long limit, String unit) {
+            super("The anchor's request group exceeds " + limit + " retained " + unit);
+        }
+    }
+}
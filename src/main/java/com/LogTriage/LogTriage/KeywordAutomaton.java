@@ -0,0 +1,128 @@
+package com.LogTriage.LogTriage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over lower-case ASCII keywords, compiled to a full transition table.
+ * Only characters that occur in some keyword get a column (column 0 = "anything else"), so the table
+ * stays small even with hundreds of keywords. Callers fold their input and drive it with next/column.
+ */
+class KeywordAutomaton {
+
+    private final byte[] charClass;  // ASCII char -> column
+    private final int classCount;
+    private final int[] transitions; // state * classCount + column -> next state
+    private final int[][] outputs;   // state -> keyword ids ending here (including via failure links)
+    private final int[] lengths;     // keyword id -> length
+
+    KeywordAutomaton(List<String> keywords) {
+        this.lengths = new int[keywords.size()];
+
+        // 1. Alphabet
+        this.charClass = new byte[128];
+        int classes = 1;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (c >= 128) throw new IllegalArgumentException("Keyword '" + keyword + "' is not ASCII");
+                if (charClass[c] == 0) {
+                    if (classes == 127) throw new IllegalArgumentException("Too many distinct keyword characters");
+                    charClass[c] = (byte) classes++;
+                }
+            }
+        }
+        this.classCount = classes;
+
+        // 2. Trie
+        ArrayList<int[]> trie = new ArrayList<>();
+        ArrayList<int[]> matches = new ArrayList<>();
+        trie.add(new int[classCount]);
+        matches.add(new int[0]);
+        for (int id = 0; id < keywords.size(); id++) {
+            String keyword = keywords.get(id);
+            lengths[id] = keyword.length();
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int column = charClass[keyword.charAt(i)];
+                if (trie.get(state)[column] == 0) {
+                    trie.get(state)[column] = trie.size();
+                    trie.add(new int[classCount]);
+                    matches.add(new int[0]);
+                }
+                state = trie.get(state)[column];
+            }
+            matches.set(state, addId(matches.get(state), id));
+        }
+
+        // 3. Failure links (BFS), folded into the transition table
+        int states = trie.size();
+        this.transitions = new int[states * classCount];
+        this.outputs = new int[states][];
+        int[] fail = new int[states];
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+
+        outputs[0] = matches.get(0);
+        for (int column = 1; column < classCount; column++) {
+            int child = trie.get(0)[column];
+            transitions[column] = child;
+            if (child != 0) queue[tail++] = child;
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            outputs[state] = merge(matches.get(state), outputs[fail[state]]);
+            for (int column = 1; column < classCount; column++) {
+                int child = trie.get(state)[column];
+                int fallback = transitions[fail[state] * classCount + column];
+                if (child != 0) {
+                    fail[child] = fallback;
+                    transitions[state * classCount + column] = child;
+                    queue[tail++] = child;
+                } else {
+                    transitions[state * classCount + column] = fallback;
+                }
+            }
+        }
+    }
+
+    /**
+     * Column for an already-folded character; anything outside the keyword alphabet is column 0.
+     */
+    int column(char c) {
+        return c < 128 ? charClass[c] : 0;
+    }
+
+    int next(int state, int column) {
+        return transitions[state * classCount + column];
+    }
+
+    /**
+     * Keyword ids that end in 'state'. Never null; mostly the shared empty array.
+     */
+    int[] outputs(int state) {
+        return outputs[state];
+    }
+
+    int keywordLength(int id) {
+        return lengths[id];
+    }
+
+    private static int[] addId(int[] ids, int id) {
+        for (int existing : ids) {
+            if (existing == id) return ids;
+        }
+        int[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[ids.length] = id;
+        return grown;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        int[] merged = own;
+        for (int id : inherited) {
+            merged = addId(merged, id);
+        }
+        return merged;
+    }
+}
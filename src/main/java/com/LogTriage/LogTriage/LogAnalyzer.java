@@ -1,17 +1,22 @@
 package com.LogTriage.LogTriage;
 
 import java.util.ArrayList;
-import java.util.regex.Matcher;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
 import java.util.regex.Pattern;
 
 public class LogAnalyzer {
 
+    private final EventRanker ranker = EventRanker.getDefault();
+
     /**
      * Identify the "Anchor" event.
      * This is the most significant event in the list (the root cause).
      */
     public Event selectAnchor(ArrayList<Event> events) {
         if (events == null || events.isEmpty()) return null;
+        long started = TriageMetrics.start();
         Event candidate = events.getFirst();
 
         for (Event e : events) {
@@ -19,70 +24,46 @@ public class LogAnalyzer {
                 candidate = e;
             }
         }
+        TriageMetrics.stop(TriageMetrics.Stage.SELECT_ANCHOR, started);
         return candidate;
     }
 
     /**
      * The Decision Engine: Determines if the 'challenger' is a better Anchor than the 'currentChampion'.
+     * Level first, then having an exception, then having an app frame; on a tie, stick with the Champion.
      */
-    private boolean isMoreImportant(Event challenger, Event currentChampion) {
-        int challengerScore = getLevelScore(challenger.getLevel());
-        int championScore = getLevelScore(currentChampion.getLevel());
-
-        if (challengerScore > championScore) {
-            return true;
-        }
-        if (challengerScore < championScore) {
-            return false;
-        }
-
-        boolean challengerHasException = challenger.getExceptionClass() != null;
-        boolean championHasException = currentChampion.getExceptionClass() != null;
-        if (challengerHasException && !championHasException) {
-            return true;
-        }
-        if (!challengerHasException && championHasException) {
-            return false;
-        }
-
-        boolean challengerIsAppCode = hasAppFrame(challenger);
-        boolean championIsAppCode = hasAppFrame(currentChampion);
-
-        if (challengerIsAppCode && !championIsAppCode) {
-            return true;
-        }
-        if (!challengerIsAppCode && championIsAppCode) {
-            return false;
-        }
-
-        // If everything is equal, stick with the Champion.
-        return false;
+    boolean isMoreImportant(Event challenger, Event currentChampion) {
+        return rankOf(challenger) > rankOf(currentChampion);
     }
 
-    private int getLevelScore(String level) {
-        if (level == null) return 0;
-        return switch (level.toUpperCase()) {
-            case "ERROR" -> 3;
-            case "WARN" -> 2;
-            case "INFO" -> 1;
-            case "DEBUG" -> 0;
-            default -> 0;
-        };
+    /**
+     * True when nothing can beat this event under isMoreImportant (ERROR + exception + app frame).
+     */
+    boolean isTopRanked(Event event) {
+        return rankOf(event) == EventRanker.TOP_RANK;
     }
 
-    private boolean hasAppFrame(Event event) {
-        if (event.getRawLines() == null) return false;
-
-        for (String line : event.getRawLines()) {
-            // In a real app, this might be "com.mycompany"
-            if (line.contains("at com.")) { //Maybe have it Com.LogTriage
-                return true;
-            }
+    /**
+     * The isMoreImportant ordering as a single number (see EventRanker). Parsed events carry it already;
+     * others (built by hand, read back from a snapshot or CompactEventStore) are ranked on first use.
+     */
+    int rankOf(Event event) {
+        int rank = event.getRank();
+        if (rank < 0) {
+            rank = ranker.rankOf(event);
+            event.setRank(rank);
         }
-        return false;
+        return rank;
     }
 
     public ArrayList<Event> getWindow(ArrayList<Event> allEvents, Event anchor) {
+        long started = TriageMetrics.start();
+        ArrayList<Event> window = collectWindow(allEvents, anchor);
+        TriageMetrics.stop(TriageMetrics.Stage.GET_WINDOW, started);
+        return window;
+    }
+
+    private ArrayList<Event> collectWindow(ArrayList<Event> allEvents, Event anchor) {
         ArrayList<Event> window = new ArrayList<>();
 
         if (anchor.getRequestId() != null && !anchor.getRequestId().isEmpty()) {
@@ -112,6 +93,35 @@ public class LogAnalyzer {
         return window;
     }
 
+    /**
+     * Same window as getWindow(allEvents, anchor), but built from the index in O(window size).
+     */
+    public ArrayList<Event> getWindow(EventIndex index, Event anchor) {
+        long started = TriageMetrics.start();
+        ArrayList<Event> window = collectWindow(index, anchor);
+        TriageMetrics.stop(TriageMetrics.Stage.GET_WINDOW, started);
+        return window;
+    }
+
+    private ArrayList<Event> collectWindow(EventIndex index, Event anchor) {
+        if (anchor.getRequestId() != null && !anchor.getRequestId().isEmpty()) {
+            return index.requestGroup(anchor.getRequestId());
+        }
+
+        ArrayList<Event> window = new ArrayList<>();
+        int anchorIndex = index.positionOf(anchor);
+        if (anchorIndex == -1) {
+            return window; // Return empty, don't crash
+        }
+
+        int startIndex = Math.max(0, anchorIndex - 10);
+        int endIndex = Math.min(index.size() - 1, anchorIndex + 10);
+        for (int i = startIndex; i <= endIndex; i++) {
+            window.add(index.get(i));
+        }
+        return window;
+    }
+
 //    private static final String[] SECURITY_KEYWORDS = {
 //            "ignore previous instructions",
 //            "system prompt",
@@ -119,7 +129,8 @@ public class LogAnalyzer {
 //            "forget all rules"
 //    };
 
-    private static final Pattern SECURITY_PATTERN = Pattern.compile(
+    // Reference for SecurityScanner's bundled rules (security-rules.txt); the scanner must flag exactly what this finds
+    static final Pattern SECURITY_PATTERN = Pattern.compile(
             "(?i)" + // Turn on case insensitivity
                     "ignore\\s+(all\\s+)?previous\\s+instructions|" +
                     "system\\s+prompt|" +
@@ -129,22 +140,24 @@ public class LogAnalyzer {
                     "forget\\s+all\\s+rules"
     );
 
+    /**
+     * Flags events whose header or continuation lines contain prompt-injection text.
+     */
     public void scanForSecurity(ArrayList<Event> window) {
+        long started = TriageMetrics.start();
+        SecurityScanner scanner = SecurityScanner.getDefault();
         for (Event e : window) {
-            if (e.getMessage() != null) {
-                Matcher matcher = SECURITY_PATTERN.matcher(e.getMessage());
-                if (matcher.find()) {
-                    e.setSecurityRisk(true);
-                }
-            }
+            scanner.scan(e);
         }
+        TriageMetrics.stop(TriageMetrics.Stage.SCAN_SECURITY, started);
     }
 
     /**
      * Filters out "Happy Path" logs (DEBUG, Success messages) to reduce noise.
      * Returns the number of events dropped.
      */
-    private int filterNoise(ArrayList<Event> window) {
+    int filterNoise(ArrayList<Event> window) {
+        long started = TriageMetrics.start();
         int droppedCount = 0;
 
         // We use an iterator (or a reverse loop) to safely remove items while looping
@@ -172,16 +185,114 @@ public class LogAnalyzer {
                 }
             }
         }
+        TriageMetrics.stop(TriageMetrics.Stage.FILTER_NOISE, started);
         return droppedCount;
     }
 
+    public LogBundle triage(EventIndex index) {
+        if (index.size() == 0) return null;
+        Event anchor = selectAnchor(index.getEvents());
+        return buildBundle(anchor, getWindow(index, anchor));
+    }
+
     public LogBundle triage (ArrayList<Event> allEvents) {
         if (allEvents == null || allEvents.isEmpty()) return null;
         Event anchor =  selectAnchor(allEvents);
         ArrayList<Event> window = getWindow(allEvents, anchor);
         if (window == null) return null;
+        return buildBundle(anchor, window);
+    }
+
+    /**
+     * Multi-incident triage: the K most important distinct incidents in the file, best first.
+     * One pass keeps a bounded min-heap of candidates (ranked like isMoreImportant, earlier event wins ties).
+     * Candidates with the same exception class and top app frame are the same incident, so only the best
+     * one is kept. Windows then come from the EventIndex in O(window size), without rescanning per incident.
+     */
+    public ArrayList<LogBundle> triageTopK(ArrayList<Event> allEvents, int k) {
+        if (allEvents == null || allEvents.isEmpty() || k <= 0) return new ArrayList<>();
+        return triageTopK(EventIndex.of(allEvents), k);
+    }
+
+    public ArrayList<LogBundle> triageTopK(EventIndex index, int k) {
+        ArrayList<LogBundle> bundles = new ArrayList<>();
+        if (index.size() == 0 || k <= 0) return bundles;
+
+        PriorityQueue<Incident> worstFirst = new PriorityQueue<>(k + 1, Comparator.reverseOrder());
+        HashMap<String, Incident> byKey = new HashMap<>();
+
+        for (int i = 0; i < index.size(); i++) {
+            Event e = index.get(i);
+
+            Incident candidate = new Incident(e, i, rankOf(e));
+            // A full heap only admits something better than its worst entry (this also covers duplicates,
+            // because a duplicate can only replace an entry that is at least as good as the worst one)
+            if (worstFirst.size() == k && candidate.compareTo(worstFirst.peek()) >= 0) continue;
+
+            candidate.key = dedupeKey(e);
+            Incident existing = byKey.get(candidate.key);
+            if (existing != null) {
+                if (candidate.compareTo(existing) < 0) {
+                    worstFirst.remove(existing);
+                    worstFirst.add(candidate);
+                    byKey.put(candidate.key, candidate);
+                }
+                continue;
+            }
+
+            if (worstFirst.size() == k) {
+                byKey.remove(worstFirst.poll().key);
+            }
+            worstFirst.add(candidate);
+            byKey.put(candidate.key, candidate);
+        }
+
+        ArrayList<Incident> incidents = new ArrayList<>(worstFirst);
+        incidents.sort(null);
+        for (Incident incident : incidents) {
+            bundles.add(buildBundle(incident.event, getWindow(index, incident.event)));
+        }
+        return bundles;
+    }
+
+    // Same exception class + same top app frame = same incident
+    private String dedupeKey(Event e) {
+        String type = (e.getExceptionClass() != null) ? e.getExceptionClass() : e.getLevel() + " " + e.getLogger();
+        ArrayList<String> frames = LogBundle.findTopAppFrames(e, 1);
+        return frames.isEmpty() ? type : type + " @ " + frames.getFirst();
+    }
+
+    /**
+     * A ranked anchor candidate. Natural order is best first: higher rank, then earlier position.
+     */
+    private static class Incident implements Comparable<Incident> {
+        final Event event;
+        final int position;
+        final int rank;
+        String key;
+
+        Incident(Event event, int position, int rank) {
+            this.event = event;
+            this.position = position;
+            this.rank = rank;
+        }
+
+        @Override
+        public int compareTo(Incident other) {
+            if (rank != other.rank) return Integer.compare(other.rank, rank);
+            return Integer.compare(position, other.position);
+        }
+    }
+
+    /**
+     * Final stage shared by every triage mode: flag, de-noise and package the window.
+     */
+    LogBundle buildBundle(Event anchor, ArrayList<Event> window) {
         scanForSecurity(window);
         int noiseDroppedCount = filterNoise(window);
-        return new LogBundle(anchor, window,  noiseDroppedCount);
+        long started = TriageMetrics.start();
+        LogBundle bundle = new LogBundle(anchor, window,  noiseDroppedCount);
+        TriageMetrics.stop(TriageMetrics.Stage.BUILD_BUNDLE, started);
+        return bundle;
     }
 }
@@ -0,0 +1,320 @@
+package com.LogTriage.LogTriage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * "tail -f" for triage. Reads only the bytes appended since the last poll through a FileChannel, feeds complete
+ * lines to LogParser and the events to IncrementalTriage, and reports a bundle when
+ *   - a new event beats the current anchor under isMoreImportant, or
+ *   - the current anchor's trailing window (next 10 events) closes, or
+ *   - the anchor grew: it was completed after lingerMillis of silence, and more of its lines arrived after all.
+ * A top-ranked anchor can never be beaten, so once its window closes the incident is over: triage starts afresh,
+ * and the next anchor is only reported when it is top-ranked too (a later incident, not the first INFO line after).
+ * Rotation (the path now points at a different file) and truncation are detected on every poll; truncation starts
+ * parsing and triage over. Triage memory is bounded like an upload's (request-id groups, retained events and bytes);
+ * if the anchor's own group outgrows it, triage starts afresh as well.
+ * The byte offset of the last complete line is saved to "<log>.follow-checkpoint", so a restart resumes there
+ * instead of re-reading the file (triage state itself starts fresh).
+ */
+public class LogFollower {
+
+    public interface Listener {
+        /**
+         * @param newAnchor true for a new (or grown) anchor, false when its window closed
+         */
+        void onBundle(LogBundle bundle, boolean newAnchor);
+    }
+
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+    // Request groups, and the events and bytes in them, kept in memory while following an endless stream
+    private static final int MAX_TRACKED_REQUEST_IDS = 10_000;
+    private static final long MAX_RETAINED_EVENTS = IncrementalTriage.DEFAULT_MAX_RETAINED_EVENTS;
+    private static final long MAX_RETAINED_BYTES = 64L << 20;
+
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final LogParser parser;
+    private final LogAnalyzer analyzer = new LogAnalyzer();
+    private IncrementalTriage triage;
+    private boolean afterIncident; // the last anchor's window closed: only report the next top-ranked one
+    private final Listener listener;
+    private final long pollMillis;
+    private final long lingerMillis;
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;          // next byte to read
+    private long committedPosition; // byte offset just after the last complete line
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    private byte[] partialLine = new byte[256];
+    private int partialLength;
+
+    private long lastDataMillis;
+    private boolean eventPending;
+    private Event lingered;   // completed by the linger timeout, until the next line shows it really was complete
+    private Event reopened;   // that event again, if continuation lines followed (already accepted by the triage)
+    private long lastCheckpointMillis;
+
+    /**
+     * @param pollMillis   how often the file is checked for new data
+     * @param lingerMillis how long the file must be idle before the last (still open) event is considered complete.
+     *                     If continuation lines arrive after that, the event is reopened, re-ranked and re-reported.
+     */
+    public LogFollower(Path logFile, LogParser parser, Listener listener, long pollMillis, long lingerMillis) {
+        this.logFile = logFile;
+        this.checkpointFile = logFile.resolveSibling(logFile.getFileName() + ".follow-checkpoint");
+        this.parser = parser;
+        this.triage = newTriage();
+        this.listener = listener;
+        this.pollMillis = pollMillis;
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Follows the file until the thread is interrupted.
+     * @param fromStart read the existing content first (otherwise start at the checkpoint, or at the end of the file)
+     */
+    public void run(boolean fromStart) throws IOException {
+        try {
+            open(fromStart);
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!poll()) {
+                    Thread.sleep(pollMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+    }
+
+    void close() throws IOException {
+        saveCheckpoint();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // Package-private, like close(), so tests can drive the follower one poll() at a time
+    void open(boolean fromStart) throws IOException {
+        channel = FileChannel.open(logFile, StandardOpenOption.READ);
+        fileKey = currentFileKey();
+
+        long start = fromStart ? 0 : channel.size();
+        if (!fromStart) {
+            Long resume = loadCheckpoint();
+            if (resume != null && resume <= channel.size()) {
+                start = resume;
+            }
+        }
+        position = start;
+        committedPosition = start;
+        lastDataMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * One round: handle rotation/truncation, consume whatever was appended.
+     * @return true if new bytes were read
+     */
+    public boolean poll() throws IOException {
+        Object key = currentFileKey();
+        if (key != null && !key.equals(fileKey)) {
+            // Rotated: finish the old file (including an unterminated last line), then switch to the new one
+            readAvailable();
+            if (partialLength > 0) {
+                onLine();
+            }
+            channel.close();
+            channel = FileChannel.open(logFile, StandardOpenOption.READ);
+            fileKey = key;
+            resetTo(0);
+        } else if (channel.size() < position) {
+            // Truncated (e.g. copytruncate): everything we knew about byte offsets is void, and so is the
+            // half-built event and the triage of the old content
+            resetTo(0);
+            parser.reset();
+            triage = newTriage();
+            afterIncident = false;
+            eventPending = false;
+            lingered = null;
+            reopened = null;
+        }
+
+        boolean readSomething = readAvailable();
+        long now = System.currentTimeMillis();
+        if (readSomething) {
+            lastDataMillis = now;
+        } else if (eventPending && now - lastDataMillis >= lingerMillis) {
+            Event last = parser.finish();
+            eventPending = false;
+            if (last != null) {
+                lingered = last;
+                onEvent(last);
+            }
+        }
+
+        if (now - lastCheckpointMillis >= CHECKPOINT_INTERVAL_MILLIS) {
+            saveCheckpoint();
+            lastCheckpointMillis = now;
+        }
+        return readSomething;
+    }
+
+    private boolean readAvailable() throws IOException {
+        boolean readSomething = false;
+        while (true) {
+            readBuffer.clear();
+            int read = channel.read(readBuffer, position);
+            if (read <= 0) break;
+            readSomething = true;
+
+            byte[] bytes = readBuffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    appendPartial(bytes, lineStart, i - lineStart);
+                    committedPosition = position + i + 1;
+                    onLine();
+                    lineStart = i + 1;
+                }
+            }
+            appendPartial(bytes, lineStart, read - lineStart);
+            position += read;
+        }
+        return readSomething;
+    }
+
+    private void appendPartial(byte[] bytes, int offset, int length) {
+        if (partialLength + length > partialLine.length) {
+            partialLine = Arrays.copyOf(partialLine, Math.max(partialLine.length * 2, partialLength + length));
+        }
+        System.arraycopy(bytes, offset, partialLine, partialLength, length);
+        partialLength += length;
+    }
+
+    private void onLine() {
+        int length = partialLength;
+        if (length > 0 && partialLine[length - 1] == '\r') {
+            length--;
+        }
+        String line = new String(partialLine, 0, length, StandardCharsets.UTF_8);
+        partialLength = 0;
+
+        if (lingered != null) {
+            // A slow appender: the event completed on timeout was not finished after all
+            if (!parser.isHeader(line)) {
+                parser.reopen(lingered);
+                reopened = lingered;
+            }
+            lingered = null;
+        }
+        Event completed = parser.feed(line);
+        eventPending = true;
+        if (completed != null) {
+            onEvent(completed);
+        }
+    }
+
+    private void onEvent(Event event) {
+        Event anchorBefore = triage.getAnchor();
+        boolean closedBefore = triage.isWindowClosed();
+
+        try {
+            // A reopened event the current triage has not seen ended the previous incident: it is simply new here
+            if (event == reopened && triage.getEventsSeen() > 0) {
+                // Completed again with its late lines: re-rank it, and re-report it if it is (now) the anchor
+                reopened = null;
+                triage.update(event);
+                if (triage.getAnchor() == event && reportable(event)) {
+                    listener.onBundle(triage.finish(), true);
+                }
+                return;
+            }
+            reopened = null;
+            triage.accept(event);
+        } catch (IncrementalTriage.RetainedEventsExceededException e) {
+            System.err.println("⚠️ " + e.getMessage() + ", starting triage over");
+            triage = newTriage();
+            return;
+        }
+
+        Event anchor = triage.getAnchor();
+        boolean newAnchor = anchor != anchorBefore;
+        boolean windowClosed = !closedBefore && triage.isWindowClosed();
+        if ((newAnchor || windowClosed) && reportable(anchor)) {
+            listener.onBundle(triage.finish(), newAnchor);
+            if (windowClosed && analyzer.isTopRanked(anchor)) {
+                // Nothing can replace this anchor, so nothing later would ever be reported: the incident is over
+                triage = newTriage();
+                afterIncident = true;
+            }
+        }
+    }
+
+    /**
+     * False for the lesser anchors that come and go after an incident; the next top-ranked one ends that phase.
+     */
+    private boolean reportable(Event anchor) {
+        if (afterIncident && !analyzer.isTopRanked(anchor)) return false;
+        afterIncident = false;
+        return true;
+    }
+
+    private IncrementalTriage newTriage() {
+        return new IncrementalTriage(analyzer, MAX_TRACKED_REQUEST_IDS, MAX_RETAINED_EVENTS, MAX_RETAINED_BYTES);
+    }
+
+    private void resetTo(long offset) {
+        position = offset;
+        committedPosition = offset;
+        partialLength = 0;
+    }
+
+    private Object currentFileKey() throws IOException {
+        try {
+            return Files.readAttributes(logFile, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            return null; // mid-rotation: keep reading the old file until the new one appears
+        }
+    }
+
+    private Long loadCheckpoint() {
+        if (!Files.exists(checkpointFile)) return null;
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        } catch (IOException e) {
+            System.err.println("Could not read checkpoint " + checkpointFile + ": " + e.getMessage());
+            return null;
+        }
+        // Only valid for the same physical file
+        if (!Objects.equals(String.valueOf(fileKey), checkpoint.getProperty("fileKey"))) return null;
+        return Long.parseLong(checkpoint.getProperty("position", "0"));
+    }
+
+    private void saveCheckpoint() {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("fileKey", String.valueOf(fileKey));
+        checkpoint.setProperty("position", Long.toString(committedPosition));
+        try (OutputStream out = Files.newOutputStream(checkpointFile)) {
+            checkpoint.store(out, "LogTriage follow checkpoint for " + logFile.getFileName());
+        } catch (IOException e) {
+            System.err.println("Could not write checkpoint " + checkpointFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.LogTriage.LogTriage;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Opens a log file for reading, decompressing it on the fly when it is gzip or zstd (rotated "app.log.3.gz").
+ * The format is detected from the first bytes, not the file name, and nothing is written to disk.
+ *
+ * Gzip goes through ParallelGzipInputStream, so the members of a multi-member file inflate on the pool while
+ * the parser consumes the ones before them. Zstd uses aircompressor's pure-Java decoder.
+ */
+public class LogInput {
+
+    public enum Compression { NONE, GZIP, ZSTD }
+
+    private static final int ZSTD_MAGIC = 0xFD2FB528; // little-endian 28 B5 2F FD
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private LogInput() {
+    }
+
+    public static InputStream open(Path logFile) throws IOException {
+        return open(logFile, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool where gzip members are inflated (even one worker overlaps inflating with parsing)
+     */
+    public static InputStream open(Path logFile, ForkJoinPool pool) throws IOException {
+        FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ);
+        try {
+            return switch (detect(channel)) {
+                case GZIP -> new ParallelGzipInputStream(channel, pool);
+                case ZSTD -> new ZstdInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_BYTES));
+                case NONE -> Channels.newInputStream(channel);
+            };
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static Compression detect(Path logFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            return detect(channel);
+        }
+    }
+
+    public static boolean isCompressed(Path logFile) throws IOException {
+        return detect(logFile) != Compression.NONE;
+    }
+
+    private static Compression detect(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) { }
+        if (magic.position() >= 2 && (magic.get(0) & 0xff) == GzipMemberReader.ID1
+                && (magic.get(1) & 0xff) == GzipMemberReader.ID2) {
+            return Compression.GZIP;
+        }
+        if (magic.position() == 4 && Integer.reverseBytes(magic.getInt(0)) == ZSTD_MAGIC) {
+            return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+}
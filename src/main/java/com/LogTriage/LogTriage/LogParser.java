@@ -1,7 +1,13 @@
 package com.LogTriage.LogTriage;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List; // Use List interface
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,43 +25,260 @@ public class LogParser {
 
     private static final Pattern GENERIC_ID_PATTERN = Pattern.compile("([A-Za-z]+) #(\\d+)");
 
+    private static final int READ_BUFFER_CHARS = 1 << 16;
+
+    /**
+     * How header lines are recognised. Both accept exactly the same lines.
+     * REGEX is the reference implementation, SCANNER is the allocation-light HeaderScanner.
+     */
+    public enum HeaderMatcher { REGEX, SCANNER }
+
+    private final HeaderMatcher headerMatcher;
+    private final HeaderScanner scanner = new HeaderScanner(HEADER_PATTERN);
+    private final EventRanker ranker = EventRanker.getDefault();
+    private final StackTraceTable stackTraces;
+    private final long maxEventBytes;
+
+    // The event currently being assembled by feed(). It is only complete once the next header arrives.
+    private Event currentEvent;
+    private long currentEventBytes;
+    // Position handed to the next completed event
+    private int nextPosition;
+
+    public LogParser() {
+        this(HeaderMatcher.REGEX);
+    }
+
+    public LogParser(HeaderMatcher headerMatcher) {
+        this(headerMatcher, new StackTraceTable());
+    }
+
+    /**
+     * @param stackTraces shared by the parsers of one run (e.g. the chunks of a parallel parse); it lives as long
+     *                    as they do
+     */
+    public LogParser(HeaderMatcher headerMatcher, StackTraceTable stackTraces) {
+        this(headerMatcher, stackTraces, Long.MAX_VALUE);
+    }
+
+    /**
+     * For untrusted input (uploads): feed() throws EventTooLargeException once the event being assembled holds
+     * more than maxEventBytes (line lengths plus one per line break), instead of growing it without end.
+     */
+    public LogParser(HeaderMatcher headerMatcher, long maxEventBytes) {
+        this(headerMatcher, new StackTraceTable(), maxEventBytes);
+    }
+
+    private LogParser(HeaderMatcher headerMatcher, StackTraceTable stackTraces, long maxEventBytes) {
+        this.headerMatcher = headerMatcher;
+        this.stackTraces = stackTraces;
+        this.maxEventBytes = maxEventBytes;
+    }
+
+    public HeaderMatcher getHeaderMatcher() {
+        return headerMatcher;
+    }
+
+    // The reference header regex, for HeaderScanner's tests and benchmark
+    static Pattern headerPattern() {
+        return HEADER_PATTERN;
+    }
+
     public ArrayList<Event> parse(ArrayList<String> logFileLines) {
         ArrayList<Event> events = new ArrayList<>();
-        Event currentEvent = null;
+        reset();
 
         for (String logLine : logFileLines) {
-            Matcher matcher = HEADER_PATTERN.matcher(logLine);
+            Event completed = feed(logLine);
+            if (completed != null) {
+                events.add(completed);
+            }
+        }
+        Event last = finish();
+        if (last != null) {
+            events.add(last);
+        }
+        return events;
+    }
 
-            if (matcher.find()) {
-                // CASE 1: Found a Header Line (New Event)
+    /**
+     * Parses a whole file into an EventIndex (events + requestId positions), built while the lines stream in.
+     */
+    public EventIndex parseIndexed(Path logFile) throws IOException {
+        EventIndex index = new EventIndex();
+        parse(logFile, index);
+        return index;
+    }
 
-                // Save the PREVIOUS event before creating a new one
-                if (currentEvent != null) {
-                    extractMetadata(currentEvent);
-                    events.add(currentEvent);
-                }
+    /**
+     * Streams a log file through the parser one line at a time.
+     * Only the event being assembled is held in memory, so peak memory follows the largest event, not the file size.
+     * Gzip and zstd files are decompressed on the fly (see LogInput).
+     * @return the number of events handed to the sink
+     */
+    public long parse(Path logFile, Consumer<Event> sink) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                LogInput.open(logFile), StandardCharsets.UTF_8.newDecoder()), READ_BUFFER_CHARS)) {
+            return parse(reader, sink);
+        }
+    }
 
-                currentEvent = new Event();
-                currentEvent.setTimestamp(matcher.group(1));
-                currentEvent.setThread(matcher.group(2));
-                currentEvent.setLevel(matcher.group(3));
-                currentEvent.setLogger(matcher.group(4));
-                currentEvent.setMessage(matcher.group(5));
+    public long parse(BufferedReader reader, Consumer<Event> sink) throws IOException {
+        long started = TriageMetrics.start();
+        long allocatedBefore = started == 0 ? -1 : TriageMetrics.threadAllocatedBytes();
+        long emitted = 0;
+        long lines = 0;
+        long chars = 0;
+        reset();
 
-                currentEvent.addRawLine(logLine);
+        String logLine;
+        while ((logLine = reader.readLine()) != null) {
+            lines++;
+            chars += logLine.length() + 1;
+            Event completed = feed(logLine);
+            if (completed != null) {
+                sink.accept(completed);
+                emitted++;
+            }
+        }
+        Event last = finish();
+        if (last != null) {
+            sink.accept(last);
+            emitted++;
+        }
 
-            } else {
-                // CASE 2: Continuation Line (Stack trace, etc.)
-                if (currentEvent != null) {
-                    currentEvent.addRawLine(logLine);
-                }
+        if (started != 0) {
+            TriageMetrics.parsed(lines, chars, emitted);
+            if (allocatedBefore >= 0) {
+                TriageMetrics.allocated(TriageMetrics.threadAllocatedBytes() - allocatedBefore, emitted);
             }
+            TriageMetrics.stop(TriageMetrics.Stage.PARSE, started);
         }
+        return emitted;
+    }
+
+    /**
+     * Pushes a single line into the parser. Completed events are numbered 0, 1, 2, ... (see Event.getPosition).
+     * @return the PREVIOUS event once this line proves it is complete (i.e. this line is a new header), otherwise null
+     */
+    public Event feed(String logLine) {
+        Event header = parseHeader(logLine);
+
+        if (header != null) {
+            // CASE 1: Found a Header Line (New Event)
+
+            // Hand back the PREVIOUS event before creating a new one
+            Event completed = currentEvent;
+            if (completed != null) {
+                complete(completed);
+            }
+
+            currentEvent = header;
+            currentEventBytes = 0;
+            addLine(logLine);
+            return completed;
+        }
+
+        // CASE 2: Continuation Line (Stack trace, etc.)
         if (currentEvent != null) {
-            extractMetadata(currentEvent);
-            events.add(currentEvent);
+            addLine(logLine);
         }
-        return events;
+        return null;
+    }
+
+    private void addLine(String logLine) {
+        currentEventBytes += logLine.length() + 1;
+        if (currentEventBytes > maxEventBytes) {
+            throw new EventTooLargeException(maxEventBytes);
+        }
+        currentEvent.addRawLine(logLine);
+    }
+
+    // Returns a new Event filled from the header fields, or null if the line is a continuation
+    private Event parseHeader(String logLine) {
+        if (headerMatcher == HeaderMatcher.SCANNER) {
+            if (!scanner.scan(logLine)) return null;
+            Event event = new Event();
+            event.setTimestamp(scanner.timestamp());
+            event.setThread(scanner.thread());
+            event.setLevel(scanner.level());
+            event.setLogger(scanner.logger());
+            event.setMessage(scanner.message());
+            return event;
+        }
+
+        Matcher matcher = HEADER_PATTERN.matcher(logLine);
+        if (!matcher.find()) return null;
+        if (TriageMetrics.isEnabled()) TriageMetrics.headerRegexMatched();
+        Event event = new Event();
+        event.setTimestamp(matcher.group(1));
+        event.setThread(matcher.group(2));
+        event.setLevel(matcher.group(3));
+        event.setLogger(matcher.group(4));
+        event.setMessage(matcher.group(5));
+        return event;
+    }
+
+    /**
+     * True if this line starts a new event (used to find safe split points in a file).
+     */
+    public boolean isHeader(String logLine) {
+        if (headerMatcher == HeaderMatcher.SCANNER) {
+            return scanner.scan(logLine);
+        }
+        return HEADER_PATTERN.matcher(logLine).find();
+    }
+
+    /**
+     * Drops the event being assembled and numbers the next completed event 0 again (new input).
+     */
+    public void reset() {
+        currentEvent = null;
+        nextPosition = 0;
+    }
+
+    /**
+     * Makes 'event', the last one finish() returned, the event being assembled again (e.g. LogFollower, when more of
+     * its continuation lines show up after all). It keeps its position and is completed again like any other.
+     */
+    public void reopen(Event event) {
+        if (currentEvent != null || event.getPosition() != nextPosition - 1) {
+            throw new IllegalStateException("Only the last completed event can be reopened");
+        }
+        currentEvent = event;
+        currentEventBytes = bytesOf(event);
+        nextPosition--;
+    }
+
+    /**
+     * Size of an event's text as counted against maxEventBytes: its line lengths plus one per line break.
+     */
+    static long bytesOf(Event event) {
+        long bytes = 0;
+        for (String line : event.getRawLines()) {
+            bytes += line.length() + 1;
+        }
+        return bytes;
+    }
+
+    /**
+     * Flushes the event still being assembled (end of input).
+     * @return the last event, or null if nothing is pending
+     */
+    public Event finish() {
+        Event completed = currentEvent;
+        currentEvent = null;
+        if (completed != null) {
+            complete(completed);
+        }
+        return completed;
+    }
+
+    private void complete(Event event) {
+        stackTraces.attach(event);
+        extractMetadata(event);
+        event.setRank(ranker.rankOf(event));
+        event.setPosition(nextPosition++);
     }
 
     private void extractMetadata(Event event) {
@@ -67,18 +290,21 @@ public class LogParser {
         if (event.getMessage() != null) {
             Matcher idMatcher = GENERIC_ID_PATTERN.matcher(event.getMessage());
             if (idMatcher.find()) {
+                if (TriageMetrics.isEnabled()) TriageMetrics.requestIdRegexMatched();
                 event.setRequestId(idMatcher.group(0));
             }
         }
     }
 
     private void extractExceptionClass(Event event) {
-        if (event.getRawLines() != null) {
-            for (String line : event.getRawLines()) {
+        List<String> rawLines = event.getRawLines();
+        if (rawLines != null) {
+            for (int i = 0; i < rawLines.size(); i++) {
+                String line = rawLines.get(i);
                 String trimmed = line.trim();
 
                 // 1. Skip if this is the Header line (we don't want to parse the timestamp again)
-                if (HEADER_PATTERN.matcher(line).matches()) continue;
+                if (isFullHeader(line, i == 0)) continue;
 
                 // 2. Skip if this is a Stack Trace line
                 if (trimmed.startsWith("at ") || trimmed.startsWith("...")) continue;
@@ -95,4 +321,23 @@ public class LogParser {
             }
         }
     }
+
+    private boolean isFullHeader(String line, boolean firstLine) {
+        if (headerMatcher == HeaderMatcher.REGEX) {
+            return HEADER_PATTERN.matcher(line).matches();
+        }
+        // SCANNER: every raw line after the first already failed the header check when it was fed in,
+        // and for the first one find() and matches() only differ if it contains a line terminator.
+        if (!firstLine) return false;
+        return !HeaderScanner.hasLineTerminator(line) || HEADER_PATTERN.matcher(line).matches();
+    }
+
+    /**
+     * A single event (a header and its continuation lines) is larger than maxEventBytes.
+     */
+    public static class EventTooLargeException extends RuntimeException {
+        EventTooLargeException(long limit) {
+            super("An event exceeds " + limit + " bytes");
+        }
+    }
 }
\ No newline at end of file
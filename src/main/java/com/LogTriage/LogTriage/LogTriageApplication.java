@@ -1,12 +1,21 @@
 package com.LogTriage.LogTriage;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 @SpringBootApplication
 public class LogTriageApplication {
@@ -21,14 +30,39 @@ public class LogTriageApplication {
 
         String command = args[0];  // e.g., "bundle"
         String filePath = args[1]; // e.g., "samples/mixed-noise.log"
+        Map<String, String> options = parseOptions(args, 2); // e.g., "--parallel"
 
         try {
+            if (options.containsKey("components")) {
+                ComponentMatcher.setDefault(ComponentMatcher.load(Paths.get(options.get("components"))));
+            }
+            if (options.containsKey("security-rules")) {
+                SecurityScanner.setDefault(SecurityScanner.load(Paths.get(options.get("security-rules"))));
+            }
+            if (options.containsKey("runbook")) {
+                RunbookIndex.setDefault(RunbookIndex.load(Paths.get(options.get("runbook"))));
+            }
+            if (options.containsKey("app-packages")) {
+                EventRanker.setDefault(EventRanker.of(options.get("app-packages")));
+            }
+            // CLI runs only pay for instrumentation when asked to
+            TriageMetrics.setEnabled(options.containsKey("stats"));
+
             switch (command) {
                 case "bundle":
-                    runBundle(filePath);
+                    runBundle(filePath, options);
+                    if (options.containsKey("stats")) {
+                        TriageMetrics.printSummary(System.out);
+                    }
+                    break;
+                case "follow":
+                    runFollow(filePath, options);
                     break;
                 case "report":
-                    System.out.println("Coming soon: AI Report generation.");
+                    runReport(filePath, options);
+                    if (options.containsKey("stats")) {
+                        TriageMetrics.printSummary(System.out);
+                    }
                     break;
                 default:
                     System.out.println("Unknown command: " + command);
@@ -36,6 +70,12 @@ public class LogTriageApplication {
             }
         } catch (IOException e) {
             System.err.println("❌ Error reading file: " + e.getMessage());
+        } catch (IncrementalTriage.RetainedEventsExceededException e) {
+            System.err.println("❌ " + e.getMessage() + " (see --max-retained-events)");
+        } catch (IllegalArgumentException e) {
+            // A bad option value, e.g. "--top" without "=K"
+            System.err.println("❌ " + e.getMessage());
+            printUsage();
         } catch (Exception e) {
             System.err.println("❌ Unexpected error: " + e.getMessage());
             e.printStackTrace();
@@ -43,28 +83,299 @@ public class LogTriageApplication {
     }
 
 
-    private static void runBundle(String filePath) throws IOException {
-        System.out.println("Processing file: " + filePath);
-        ArrayList<String> lines = new ArrayList<>(Files.readAllLines(Paths.get(filePath)));
+    private static void runBundle(String filePath, Map<String, String> options) throws IOException {
+        int templateLimit = intOption(options, "templates", 0, 1);
+        TemplateMiner templates = templateLimit > 0 ? new TemplateMiner(TemplateMiner.DEFAULT_MAX_TEMPLATES) : null;
+        List<SecurityScanner.Finding> findings = options.containsKey("scan-security") ? new ArrayList<>() : null;
 
-        LogParser parser = new LogParser();
-        ArrayList<Event> events = parser.parse(lines);
+        List<LogBundle> bundles = triage(filePath, options, templates, findings);
 
-        LogAnalyzer analyzer = new LogAnalyzer();
-        LogBundle bundle = analyzer.triage(events);
+        if (findings != null) {
+            printFindings(findings);
+        }
+        if (templates != null) {
+            printTemplates(templates, templateLimit);
+        }
 
-        if (bundle != null) {
-            System.out.println("\n--- FINAL TRIAGE REPORT ---");
-            System.out.println(bundle);
+        if (bundles.isEmpty()) {
+            System.out.println("No significant incidents found.");
+            return;
+        }
+        if (options.containsKey("top")) {
+            for (int i = 0; i < bundles.size(); i++) {
+                System.out.println("\n--- INCIDENT " + (i + 1) + " OF " + bundles.size() + " ---");
+                printBundle(bundles.get(i));
+            }
         } else {
+            System.out.println("\n--- FINAL TRIAGE REPORT ---");
+            printBundle(bundles.getFirst());
+        }
+        recordIncidents(bundles, options);
+    }
+
+    private static void runFollow(String filePath, Map<String, String> options) throws IOException {
+        System.out.println("Following file: " + filePath + " (Ctrl+C to stop)");
+        LogParser parser = new LogParser("scanner".equals(options.get("parser"))
+                ? LogParser.HeaderMatcher.SCANNER
+                : LogParser.HeaderMatcher.REGEX);
+
+        LogFollower follower = new LogFollower(Paths.get(filePath), parser, (bundle, newAnchor) -> {
+            System.out.println(newAnchor ? "\n--- NEW ANCHOR ---" : "\n--- INCIDENT WINDOW CLOSED ---");
+            try {
+                printBundle(bundle);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, 10, 50);
+        follower.run(options.containsKey("from-start"));
+    }
+
+    /**
+     * Triages like `bundle` (one anchor, or --top=K incidents) and has the model write a report for each bundle.
+     * Reports are validated against the schema; bundles of the same incident share one model call.
+     */
+    private static void runReport(String filePath, Map<String, String> options) throws IOException {
+        List<LogBundle> bundles = triage(filePath, options, null, null);
+        if (bundles.isEmpty()) {
             System.out.println("No significant incidents found.");
+            return;
+        }
+
+        ReportGenerator reports = new ReportGenerator(new PromptBuilder(),
+                ModelClient.named(options.getOrDefault("model", "gemini")),
+                new ReportCache(),
+                options.getOrDefault("schema", ReportGenerator.DEFAULT_SCHEMA));
+        ObjectWriter writer = new ObjectMapper().writerWithDefaultPrettyPrinter();
+        for (int i = 0; i < bundles.size(); i++) {
+            System.out.println("\n--- AI REPORT " + (i + 1) + " OF " + bundles.size() + " ---");
+            try {
+                System.out.println(writer.writeValueAsString(reports.generate(bundles.get(i))));
+            } catch (ReportGenerator.InvalidReportException e) {
+                System.out.println("❌ The model did not return a valid report:");
+                for (String error : e.getErrors()) {
+                    System.out.println("   -> " + error);
+                }
+            }
+        }
+        System.out.println("\n✅ " + reports.getCache().getMisses() + " model call(s) for "
+                + bundles.size() + " incident(s)");
+        recordIncidents(bundles, options);
+    }
+
+    /**
+     * What `bundle` and `report` share: resolves the log argument (file, directory or glob), parses it and triages it
+     * into the single best bundle, or with --top=K into the K most important distinct incidents.
+     * @param templates if not null, every event's message is added to it
+     * @param findings  if not null, every event is scanned for prompt-injection text and the findings are added to it
+     * @return best first; empty if nothing significant was found
+     */
+    private static List<LogBundle> triage(String filePath, Map<String, String> options, TemplateMiner templates,
+                                          List<SecurityScanner.Finding> findings) throws IOException {
+        List<Path> files = MergedLogParser.resolve(filePath);
+        if (files.size() == 1) {
+            System.out.println("Processing file: " + filePath);
+        } else {
+            System.out.println("Merging " + files.size() + " files: " + files);
+        }
+        LogParser.HeaderMatcher headerMatcher = "scanner".equals(options.get("parser"))
+                ? LogParser.HeaderMatcher.SCANNER
+                : LogParser.HeaderMatcher.REGEX;
+        // Checked before the parse, so a typo doesn't cost a full pass over the log
+        int top = intOption(options, "top", 0, 1);
+
+        EventIndex index = (top > 0) ? new EventIndex() : null;
+        IncrementalTriage triage = (top > 0) ? null : newTriage(options);
+
+        Consumer<Event> sink = (index != null) ? index : triage;
+        if (templates != null) {
+            sink = sink.andThen(templates::add);
+        }
+        SecurityScanner.StreamScan scan = null;
+        if (findings != null) {
+            // Flag every event on its way to the triage, not just the ones that end up in the window,
+            // on all cores while the parse goes on
+            scan = SecurityScanner.getDefault().scanStream(sink);
+            sink = scan;
+        }
+        parse(files, headerMatcher, options, sink);
+        if (scan != null) {
+            findings.addAll(scan.finish()); // also hands on the last buffered events
+        }
+
+        if (index != null) {
+            return new LogAnalyzer().triageTopK(index, top);
+        }
+        LogBundle bundle = triage.finish();
+        return (bundle != null) ? List.of(bundle) : List.of();
+    }
+
+    /**
+     * Single-pass triage that keeps at most --max-request-ids request-id groups and --max-retained-events events,
+     * so a log without a top-ranked anchor still fits in the heap.
+     */
+    private static IncrementalTriage newTriage(Map<String, String> options) {
+        int maxRequestIds = intOption(options, "max-request-ids", IncrementalTriage.DEFAULT_MAX_TRACKED_REQUEST_IDS, 1);
+        long maxRetainedEvents = longOption(options, "max-retained-events",
+                IncrementalTriage.DEFAULT_MAX_RETAINED_EVENTS, 1, Long.MAX_VALUE);
+        return new IncrementalTriage(new LogAnalyzer(), maxRequestIds, maxRetainedEvents);
+    }
+
+    /**
+     * With --incidents=FILE, records each bundle in the persistent incident index and says whether it is new.
+     */
+    private static void recordIncidents(List<LogBundle> bundles, Map<String, String> options) throws IOException {
+        if (!options.containsKey("incidents") || bundles.isEmpty()) return;
+
+        try (IncidentIndex index = IncidentIndex.open(Paths.get(options.get("incidents")))) {
+            System.out.println();
+            for (LogBundle bundle : bundles) {
+                IncidentIndex.Entry entry = index.record(bundle);
+                String status = entry.isNew() ? "🆕 New incident "
+                        : entry.isAlreadyRecorded() ? "🔁 Known incident (this sighting was already recorded) "
+                        : "🔁 Known incident ";
+                System.out.println(status + entry + " - " + bundle.getIncidentTitle());
+            }
+        }
+    }
+
+    private static void printTemplates(TemplateMiner miner, int limit) {
+        ArrayList<TemplateMiner.Template> byCount = new ArrayList<>(miner.getTemplates());
+        byCount.sort(Comparator.comparingInt(TemplateMiner.Template::getCount).reversed());
+
+        String dropped = miner.getDroppedEvents() == 0 ? ""
+                : String.format(", %,d events of rare templates dropped", miner.getDroppedEvents());
+        System.out.println("\n--- TOP MESSAGE TEMPLATES (" + miner.size() + " distinct" + dropped + ") ---");
+        for (int i = 0; i < Math.min(limit, byCount.size()); i++) {
+            System.out.println(byCount.get(i));
+        }
+    }
+
+    private static void printFindings(List<SecurityScanner.Finding> findings) {
+        System.out.println("\n--- SECURITY SCAN: " + findings.size() + " FINDING(S) ---");
+        for (SecurityScanner.Finding finding : findings) {
+            System.out.println(finding);
+        }
+    }
+
+    /**
+     * Streams the bundle's JSON straight to stdout instead of building the whole document as a String.
+     */
+    private static void printBundle(LogBundle bundle) throws IOException {
+        bundle.writeJson(System.out);
+        System.out.println();
+    }
+
+    /**
+     * One file is parsed as-is; several are parsed concurrently and merged into one timeline by timestamp.
+     */
+    private static long parse(List<Path> files, LogParser.HeaderMatcher headerMatcher, Map<String, String> options,
+                              Consumer<Event> sink) throws IOException {
+        if (files.size() == 1) {
+            return parse(files.getFirst(), headerMatcher, options, sink);
+        }
+        return new MergedLogParser((file, fileSink) -> parse(file, headerMatcher, options, fileSink)).parse(files, sink);
+    }
+
+    private static long parse(Path path, LogParser.HeaderMatcher headerMatcher, Map<String, String> options,
+                              Consumer<Event> sink) throws IOException {
+        if (options.containsKey("from") || options.containsKey("to")) {
+            // Seek through the sidecar time index instead of reading the whole file
+            long from = options.containsKey("from") ? Timestamps.parseBound(options.get("from"), false) : Long.MIN_VALUE + 1;
+            long to = options.containsKey("to") ? Timestamps.parseBound(options.get("to"), true) : Long.MAX_VALUE;
+            if (LogInput.isCompressed(path)) {
+                // Offsets into compressed data can't be seeked to: read it all and filter
+                long[] emitted = {0};
+                new LogParser(headerMatcher).parse(path, event -> {
+                    long time = Timestamps.toEpochMillis(event.getTimestamp());
+                    if (time >= from && time <= to) {
+                        sink.accept(event);
+                        emitted[0]++;
+                    }
+                });
+                return emitted[0];
+            }
+            TimeIndex index = TimeIndex.open(path, new LogParser(headerMatcher));
+            return index.parse(new LogParser(headerMatcher), from, to, sink);
+        }
+
+        // The chunks of a parallel parse share one stack-trace table
+        StackTraceTable stackTraces = new StackTraceTable();
+        MergedLogParser.FileParser parser = options.containsKey("parallel")
+                ? new ParallelLogParser(ForkJoinPool.commonPool(), () -> new LogParser(headerMatcher, stackTraces))::parse
+                : new LogParser(headerMatcher)::parse;
+        if (options.containsKey("no-cache")) {
+            return parser.parse(path, sink);
+        }
+        // Re-runs on the same log map the events parsed last time
+        Path cacheDir = options.containsKey("cache-dir") ? Paths.get(options.get("cache-dir")) : SnapshotCache.defaultDirectory();
+        long maxBytes = longOption(options, "cache-max-mb", SnapshotCache.DEFAULT_MAX_BYTES >> 20, 1, Long.MAX_VALUE >> 20) << 20;
+        return new SnapshotCache(cacheDir, maxBytes).parse(path, parser, sink);
+    }
+
+    /**
+     * Reads trailing "--name=value" / "--flag" arguments. Flags map to "true".
+     */
+    private static Map<String, String> parseOptions(String[] args, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String[] parts = args[i].substring(2).split("=", 2);
+            options.put(parts[0], parts.length > 1 ? parts[1] : "true");
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int fallback, int min) {
+        return (int) longOption(options, name, fallback, min, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The value of a numeric "--name=N" option, or 'fallback' if it wasn't given.
+     * @throws IllegalArgumentException if it has no value, isn't a whole number or is outside [min, max]
+     */
+    private static long longOption(Map<String, String> options, String name, long fallback, long min, long max) {
+        String value = options.get(name);
+        if (value == null) return fallback;
+        if (value.equals("true")) {
+            throw new IllegalArgumentException("--" + name + " needs a value: --" + name + "=N");
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed >= min && parsed <= max) return parsed;
+        } catch (NumberFormatException e) {
+            // reported below
         }
+        throw new IllegalArgumentException("--" + name + " must be a whole number from " + min + " to " + max
+                + ", got: " + value);
     }
 
     private static void printUsage() {
         System.out.println("\n--- LOG TRIAGE CLI ---");
         System.out.println("Usage:");
-        System.out.println("  bundle <path-to-log>   : Generate a JSON triage bundle");
-        System.out.println("  report <path-to-log>   : (Future) Generate AI report");
+        System.out.println("  bundle <path-to-log>   : Generate a JSON triage bundle (plain, .gz or .zst)");
+        System.out.println("  bundle <dir-or-glob>   : Merge several logs (e.g. \"logs/pod-*.log\") into one timeline by timestamp");
+        System.out.println("      --parallel         : Parse the file in chunks on all cores");
+        System.out.println("      --parser=scanner   : Use the hand-written header scanner instead of the regex");
+        System.out.println("      --from=TS --to=TS  : Only triage events in this time range, e.g. --from=\"2026-01-07 19:05\"");
+        System.out.println("                           (seeks via a <log>.tidx time index, built on first use)");
+        System.out.println("      --cache-dir=DIR    : Where parsed-event snapshots are kept (default ~/.cache/logtriage/snapshots)");
+        System.out.println("      --cache-max-mb=N   : Size cap of that directory, least recently used snapshots go first (default 2048)");
+        System.out.println("      --no-cache         : Always parse the log, don't read or write a snapshot");
+        System.out.println("      --top=K            : Report the K most important distinct incidents");
+        System.out.println("      --max-request-ids=N : Request-id groups kept while looking for the anchor (default 50000)");
+        System.out.println("      --max-retained-events=N : Events kept in those groups, least recently active dropped first (default 100000)");
+        System.out.println("      --scan-security    : Scan every event for prompt-injection text and list the matches");
+        System.out.println("      --security-rules=FILE : Prompt-injection rules to use instead of the bundled security-rules.txt");
+        System.out.println("      --templates=N      : Also list the N most frequent message templates of the whole file");
+        System.out.println("      --incidents=FILE   : Record the incident(s) in a persistent index and report whether they are new");
+        System.out.println("      --components=FILE  : Component dictionary to use instead of the bundled components.txt");
+        System.out.println("      --runbook=FILE     : Runbook whose best-matching entries are attached to each bundle (default kb/runbook.md)");
+        System.out.println("      --app-packages=P,Q : Package prefixes of our own code, preferred in anchor ranking (default com.)");
+        System.out.println("      --stats            : Print throughput, regex matches, allocation and time per stage");
+        System.out.println("  follow <path-to-log>   : Tail a growing log and re-emit the bundle when the incident changes");
+        System.out.println("      --from-start       : Read the existing content first instead of resuming/starting at the end");
+        System.out.println("  report <path-to-log>   : Have an AI model write a triage report from the bundle (same input and triage options)");
+        System.out.println("      --model=gemini|stub : gemini needs GEMINI_API_KEY in .env, stub answers offline (default gemini)");
+        System.out.println("      --schema=FILE      : Schema the report must satisfy (default spec/triage-report.schema.json)");
     }
 }
\ No newline at end of file
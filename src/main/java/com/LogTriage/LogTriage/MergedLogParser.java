@@ -0,0 +1,246 @@
+package com.LogTriage.LogTriage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Parses the logs of several pods/hosts at once and streams their events as one timeline.
+ *
+ * Every file is parsed on its own virtual thread into a small bounded queue of event batches, and the calling
+ * thread does a k-way merge of the queue heads by timestamp (ties go to the file listed first). Each file's own
+ * order is kept as-is, even where its threads logged slightly out of order. Memory is bounded by
+ * files x QUEUE_BATCHES x BATCH_EVENTS events, not by the total size, and events are renumbered in merged order,
+ * so the sink (IncrementalTriage, EventIndex...) sees a single stream with a requestId correlated across hosts.
+ * Every event is tagged with the path of its file (Event.getSource).
+ */
+public class MergedLogParser {
+
+    private static final int BATCH_EVENTS = 256;
+    private static final int QUEUE_BATCHES = 4;
+    // Hidden files, temp files and what TimeIndex, IncidentIndex and LogFollower keep next to a log
+    private static final Pattern SIDECAR = Pattern.compile(
+            "\\..*|.*\\.(tidx|meta|meta\\.\\d+|lock|grow|follow-checkpoint|tmp)");
+
+    /**
+     * How a single file is parsed (plain LogParser, ParallelLogParser, a time range through TimeIndex...).
+     */
+    @FunctionalInterface
+    public interface FileParser {
+        long parse(Path file, Consumer<Event> sink) throws IOException;
+    }
+
+    private final FileParser fileParser;
+
+    public MergedLogParser() {
+        this(() -> new LogParser());
+    }
+
+    public MergedLogParser(Supplier<LogParser> parserFactory) {
+        this((file, sink) -> parserFactory.get().parse(file, sink));
+    }
+
+    public MergedLogParser(FileParser fileParser) {
+        this.fileParser = fileParser;
+    }
+
+    /**
+     * The log files named by 'pathOrGlob': a file, every regular file directly in a directory (except hidden
+     * files and our own sidecars), or the files matching a glob such as "logs/pod-*.log.gz" or "logs/**.log".
+     * Sorted by path.
+     */
+    public static List<Path> resolve(String pathOrGlob) throws IOException {
+        int wildcard = firstWildcard(pathOrGlob);
+        Stream<Path> candidates;
+        if (wildcard < 0) {
+            Path single = Paths.get(pathOrGlob);
+            if (Files.isRegularFile(single)) return List.of(single);
+            if (!Files.isDirectory(single)) throw new NoSuchFileException(pathOrGlob);
+            candidates = Files.list(single);
+        } else {
+            // Walk from the deepest directory before the first wildcard
+            String prefix = pathOrGlob.substring(0, wildcard);
+            int slash = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(File.separatorChar));
+            Path base = slash < 0 ? Paths.get(".") : Paths.get(prefix.substring(0, slash + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pathOrGlob);
+            candidates = Files.walk(base)
+                    .map(p -> slash < 0 ? base.relativize(p) : p)
+                    .filter(matcher::matches);
+        }
+
+        try (candidates) {
+            List<Path> files = candidates
+                    .filter(Files::isRegularFile)
+                    .filter(p -> !isSidecar(p.getFileName().toString()))
+                    .sorted()
+                    .toList();
+            if (files.isEmpty()) throw new NoSuchFileException(pathOrGlob, null, "no log files found");
+            return files;
+        }
+    }
+
+    private static int firstWildcard(String pathOrGlob) {
+        for (int i = 0; i < pathOrGlob.length(); i++) {
+            if ("*?[{".indexOf(pathOrGlob.charAt(i)) >= 0) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isSidecar(String name) {
+        return SIDECAR.matcher(name).matches();
+    }
+
+    /**
+     * Streams the events of all files to the sink in merged timestamp order.
+     * @return the number of events handed to the sink
+     */
+    public long parse(List<Path> files, Consumer<Event> sink) throws IOException {
+        ArrayList<Source> sources = new ArrayList<>(files.size());
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                Source source = new Source(files.get(i), i);
+                source.producer = Thread.ofVirtual().name("parse-" + source.name).start(() -> produce(source));
+                sources.add(source);
+            }
+
+            // 1. Prime the heap with every file's first event
+            PriorityQueue<Source> heads = new PriorityQueue<>((a, b) -> a.headTime != b.headTime
+                    ? Long.compare(a.headTime, b.headTime)
+                    : Integer.compare(a.order, b.order));
+            for (Source source : sources) {
+                if (source.advance()) heads.add(source);
+            }
+
+            // 2. Always emit the earliest head, then refill from the same file
+            long emitted = 0;
+            while (!heads.isEmpty()) {
+                Source source = heads.poll();
+                Event event = source.head;
+                event.setPosition((int) emitted);
+                sink.accept(event);
+                emitted++;
+                if (source.advance()) heads.add(source);
+            }
+            return emitted;
+        } finally {
+            // Stops the producers early if the sink (or another file) failed
+            for (Source source : sources) {
+                source.producer.interrupt();
+            }
+        }
+    }
+
+    private void produce(Source source) {
+        Batch batch = new Batch();
+        try {
+            fileParser.parse(source.file, event -> {
+                event.setSource(source.name);
+                batch.events.add(event);
+                if (batch.events.size() == BATCH_EVENTS) {
+                    source.put(batch.copyAndClear());
+                }
+            });
+            batch.done = true;
+            source.put(batch);
+        } catch (CancellationException e) {
+            // the consumer is gone
+        } catch (Throwable e) {
+            batch.events.clear();
+            batch.error = e;
+            batch.done = true;
+            try {
+                source.put(batch);
+            } catch (CancellationException ignored) {
+                // the consumer is gone
+            }
+        }
+    }
+
+    private static class Source {
+        final Path file;
+        final String name;
+        final int order;
+        final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        Thread producer;
+
+        Batch batch;
+        int next;
+        Event head;
+        long headTime = Long.MIN_VALUE; // events without a parsable timestamp keep the previous one's
+
+        Source(Path file, int order) {
+            this.file = file;
+            this.name = file.toString();
+            this.order = order;
+        }
+
+        void put(Batch batch) {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                throw new CancellationException();
+            }
+        }
+
+        /**
+         * Moves 'head' to this file's next event, blocking until it is parsed.
+         * @return false at the end of the file
+         */
+        boolean advance() throws IOException {
+            while (batch == null || next == batch.events.size()) {
+                if (batch != null && batch.done) return false;
+                try {
+                    batch = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while merging " + file);
+                }
+                next = 0;
+                if (batch.error != null) rethrow(batch.error);
+            }
+            head = batch.events.get(next++);
+            long time = Timestamps.toEpochMillis(head.getTimestamp());
+            if (time != Timestamps.INVALID) headTime = time;
+            return true;
+        }
+
+        private void rethrow(Throwable error) throws IOException {
+            if (error instanceof IOException io) throw new IOException(file + ": " + io.getMessage(), io);
+            if (error instanceof UncheckedIOException io) throw new IOException(file + ": " + io.getMessage(), io.getCause());
+            if (error instanceof RuntimeException runtime) throw runtime;
+            if (error instanceof Error fatal) throw fatal;
+            throw new IOException(file + ": " + error, error);
+        }
+    }
+
+    private static class Batch {
+        ArrayList<Event> events = new ArrayList<>(BATCH_EVENTS);
+        boolean done;       // last batch of the file
+        Throwable error;    // set if parsing the file failed
+
+        Batch copyAndClear() {
+            Batch full = new Batch();
+            ArrayList<Event> swap = full.events;
+            full.events = events;
+            events = swap;
+            return full;
+        }
+    }
+}
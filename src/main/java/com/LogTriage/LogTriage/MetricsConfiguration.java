@@ -0,0 +1,20 @@
+package com.LogTriage.LogTriage;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes TriageMetrics through Micrometer, so a running service shows them under /actuator/metrics.
+ * Turn the probes off with logtriage.metrics.enabled=false.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder triageMetrics(@Value("${logtriage.metrics.enabled:true}") boolean enabled) {
+        TriageMetrics.setEnabled(enabled);
+        return TriageMetrics::bindTo;
+    }
+}
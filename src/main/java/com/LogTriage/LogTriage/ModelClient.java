@@ -0,0 +1,27 @@
+package com.LogTriage.LogTriage;
+
+import java.io.IOException;
+
+/**
+ * The AI model behind the `report` command. Implementations: GeminiModelClient (the real one) and
+ * StubModelClient (offline, deterministic).
+ */
+@FunctionalInterface
+public interface ModelClient {
+
+    /**
+     * Sends one prompt (see PromptBuilder) and returns the model's raw text answer, expected to be a JSON object.
+     */
+    String complete(String prompt) throws IOException;
+
+    /**
+     * "stub" or "gemini" (--model / logtriage.report.model).
+     */
+    static ModelClient named(String name) {
+        return switch (name) {
+            case "stub" -> new StubModelClient();
+            case "gemini" -> new GeminiModelClient();
+            default -> throw new IllegalArgumentException("Unknown model '" + name + "' (expected stub or gemini)");
+        };
+    }
+}
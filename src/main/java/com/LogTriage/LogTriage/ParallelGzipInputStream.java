@@ -0,0 +1,272 @@
+package com.LogTriage.LogTriage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Decompresses a multi-member gzip file (concatenated rotations, bgzip, pigz --independent...) on several cores
+ * while the caller reads the result in order.
+ *
+ * Member boundaries are not recorded anywhere in gzip, so the file is cut at byte sequences that look like a
+ * member header, roughly every CHUNK_BYTES. Each chunk is inflated by a pool worker into memory, and the reader
+ * only accepts a chunk if it starts exactly where the previous accepted one ended. A cut that was really inside
+ * compressed data therefore never produces output: the previous chunk simply runs past it to the true member end,
+ * the bogus chunk is dropped, and any gap up to the next usable chunk is inflated in order by the reader.
+ * Members that are too large to buffer are streamed the same way, so a single-member file degrades to plain
+ * sequential decompression. At most 'maxInFlight' chunks are buffered ahead of the reader, and both that count
+ * and the per-chunk output limit are lowered to fit the heap share ParallelLogParser uses.
+ */
+class ParallelGzipInputStream extends InputStream {
+
+    private static final long CHUNK_BYTES = 1L << 20;       // compressed bytes per task (~5-10 MB of log)
+    private static final int MAX_CHUNK_OUTPUT = 64 << 20;   // give up buffering a chunk beyond this, stream it instead
+    private static final int SCAN_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final long size;
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+    private final int maxChunkOutput;
+    private final int maxInFlight;
+
+    private final ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+    private long planned;       // compressed offset up to which chunks have been planned
+    private long expected;      // compressed offset where the next accepted output must start
+
+    private byte[] current;     // output of the last accepted chunk
+    private int currentLength;
+    private int currentPos;
+
+    private GzipMemberReader sequential; // inflating a gap in order, up to the first boundary >= sequentialUntil
+    private long sequentialUntil;
+    private boolean done;
+
+    ParallelGzipInputStream(FileChannel channel, ForkJoinPool pool) throws IOException {
+        this(channel, pool, CHUNK_BYTES, maxChunkOutput(ParallelLogParser.heapShare()));
+    }
+
+    /**
+     * @param chunkBytes     compressed bytes per task
+     * @param maxChunkOutput bytes a task may buffer before the chunk is streamed by the reader instead
+     */
+    ParallelGzipInputStream(FileChannel channel, ForkJoinPool pool, long chunkBytes, int maxChunkOutput) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        this.maxChunkOutput = maxChunkOutput;
+        this.maxInFlight = maxInFlight(pool.getParallelism(), maxChunkOutput, ParallelLogParser.heapShare());
+    }
+
+    /**
+     * MAX_CHUNK_OUTPUT, lowered so that two chunks in flight plus the one being read fit in the heap share.
+     */
+    static int maxChunkOutput(long heapShare) {
+        return (int) Math.clamp(heapShare / (3 * 2), SCAN_BYTES, MAX_CHUNK_OUTPUT);
+    }
+
+    /**
+     * parallelism + 2, lowered to what fits in the heap share (at least 1). A chunk takes up to twice its output
+     * limit while its buffer grows, and the chunk the reader is consuming counts too.
+     */
+    static int maxInFlight(int parallelism, int maxChunkOutput, long heapShare) {
+        long fits = heapShare / (2L * maxChunkOutput) - 1;
+        return (int) Math.clamp(fits, 1, parallelism + 2L);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n;
+        while ((n = read(one, 0, 1)) == 0) { }
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (true) {
+            // 1. Output of an accepted chunk
+            if (current != null && currentPos < currentLength) {
+                int n = Math.min(len, currentLength - currentPos);
+                System.arraycopy(current, currentPos, b, off, n);
+                currentPos += n;
+                return n;
+            }
+            current = null;
+
+            // 2. A gap being inflated in order
+            if (sequential != null) {
+                if (sequential.atBoundary() && sequential.position() >= sequentialUntil) {
+                    expected = sequential.position();
+                    sequential.close();
+                    sequential = null;
+                    continue;
+                }
+                int n = sequential.read(b, off, len);
+                if (n > 0) return n;
+                if (n < 0) {
+                    done = true;
+                    sequential.close();
+                    sequential = null;
+                }
+                continue;
+            }
+            if (done) return -1;
+
+            // 3. Next chunk in file order
+            plan();
+            if (inFlight.isEmpty()) {
+                if (expected >= size) {
+                    done = true;
+                } else {
+                    startSequential(Long.MAX_VALUE);
+                }
+                continue;
+            }
+            Chunk chunk = inFlight.removeFirst();
+            if (chunk.start < expected) {
+                chunk.cancel(); // its start was not a real member boundary
+                continue;
+            }
+            if (chunk.start > expected) {
+                inFlight.addFirst(chunk); // reconsider once the gap before it is inflated
+                startSequential(chunk.start);
+                continue;
+            }
+            Result result = chunk.join();
+            if (result != null) {
+                current = result.data;
+                currentLength = result.length;
+                currentPos = 0;
+                expected = result.end;
+            } else {
+                startSequential(chunk.end); // too large to buffer (or corrupt: the in-order pass reports it)
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Chunk chunk : inFlight) {
+            chunk.cancel();
+        }
+        inFlight.clear();
+        if (sequential != null) sequential.close();
+        channel.close();
+    }
+
+    private void startSequential(long until) {
+        sequential = new GzipMemberReader(channel, size, expected);
+        sequentialUntil = until;
+    }
+
+    /**
+     * Plans and submits chunks until 'maxInFlight' are queued or the file is covered.
+     */
+    private void plan() throws IOException {
+        while (inFlight.size() < maxInFlight && planned < size) {
+            long start = planned;
+            long end = nextMemberCandidate(start + chunkBytes);
+            Chunk chunk = new Chunk(start, end);
+            // A huge chunk is most likely one huge member: don't buffer it, the reader streams it
+            if (end - start <= 4 * chunkBytes) {
+                chunk.task = pool.submit(() -> inflate(start, end));
+            }
+            inFlight.addLast(chunk);
+            planned = end;
+        }
+    }
+
+    /**
+     * Inflates the members from 'start' up to the first member boundary at or after 'end'.
+     * @return null if the data is not a clean run of members from 'start' or would not fit in 'maxChunkOutput'
+     */
+    private Result inflate(long start, long end) {
+        GzipMemberReader reader = new GzipMemberReader(channel, size, start);
+        try {
+            byte[] out = new byte[(int) Math.min(maxChunkOutput, Math.max(SCAN_BYTES, (end - start) * 8))];
+            int length = 0;
+            boolean exhausted = false; // no member follows: end of file, or trailing bytes that are not one
+            while (!(reader.atBoundary() && reader.position() >= end)) {
+                if (length == out.length) {
+                    if (out.length == maxChunkOutput) return null;
+                    out = Arrays.copyOf(out, (int) Math.min(maxChunkOutput, 2L * out.length));
+                }
+                int n = reader.read(out, length, out.length - length);
+                if (n < 0) {
+                    exhausted = true;
+                    break;
+                }
+                length += n;
+            }
+            // Trailing garbage (e.g. zero padding) is ignored like GZIPInputStream does: the rest counts as consumed
+            return new Result(out, length, exhausted ? size : reader.position());
+        } catch (IOException | RuntimeException e) {
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * First offset at or after 'from' that looks like a gzip member header, or 'size'.
+     * Checks ID1 ID2 CM, no reserved flags, and a known XFL value.
+     */
+    private long nextMemberCandidate(long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        long pos = from;
+        while (pos + 10 <= size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read < 10) break;
+            byte[] bytes = buffer.array();
+            for (int i = 0; i + 10 <= read; i++) {
+                if ((bytes[i] & 0xff) == GzipMemberReader.ID1 && (bytes[i + 1] & 0xff) == GzipMemberReader.ID2
+                        && bytes[i + 2] == GzipMemberReader.DEFLATE && (bytes[i + 3] & 0xe0) == 0
+                        && (bytes[i + 8] == 0 || bytes[i + 8] == 2 || bytes[i + 8] == 4)) {
+                    return pos + i;
+                }
+            }
+            pos += read - 9; // overlap so a header across the block edge is still seen
+        }
+        return size;
+    }
+
+    private static class Chunk {
+        final long start;
+        final long end;
+        ForkJoinTask<Result> task; // null: stream this chunk in order
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        Result join() {
+            return task == null ? null : task.join();
+        }
+
+        void cancel() {
+            if (task != null) task.cancel(false);
+        }
+    }
+
+    private static class Result {
+        final byte[] data;
+        final int length;
+        final long end; // compressed offset just past the last member inflated
+
+        Result(byte[] data, int length, long end) {
+            this.data = data;
+            this.length = length;
+            this.end = end;
+        }
+    }
+}
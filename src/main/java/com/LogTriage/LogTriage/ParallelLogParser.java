@@ -0,0 +1,191 @@
+package com.LogTriage.LogTriage;
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses a large log file on several cores.
+ * The file is cut into byte ranges, and every cut is moved forward to the start of the next header line,
+ * so a stack trace always stays in the chunk of the event that owns it. Chunks are parsed independently
+ * and handed back strictly in file order, so the output is identical to LogParser.parse(Path, sink).
+ */
+public class ParallelLogParser {
+
+    private static final long MIN_CHUNK_BYTES = 1L << 20;   // 1 MB
+    private static final long MAX_CHUNK_BYTES = 8L << 20;   // 8 MB
+    // Heap per chunk in flight, in chunk bytes: decoded chars (2x) plus the parsed events and their lines (~4x)
+    private static final int CHUNK_HEAP_FACTOR = 6;
+    // Share of the max heap that in-flight chunks may take (ParallelGzipInputStream uses the same share)
+    static final int HEAP_SHARE_DIVISOR = 4;
+    private static final int SCAN_BUFFER_BYTES = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final Supplier<LogParser> parserFactory;
+
+    public ParallelLogParser() {
+        this(ForkJoinPool.commonPool(), () -> new LogParser());
+    }
+
+    public ParallelLogParser(ForkJoinPool pool, Supplier<LogParser> parserFactory) {
+        this.pool = pool;
+        this.parserFactory = parserFactory;
+    }
+
+    public ArrayList<Event> parse(Path logFile) throws IOException {
+        ArrayList<Event> events = new ArrayList<>();
+        parse(logFile, events::add);
+        return events;
+    }
+
+    /**
+     * Streams events to the sink in file order.
+     * At most 2 x parallelism chunks are in flight, and no more than fit in a quarter of the max heap, so memory
+     * stays bounded even for multi-GB files on many cores.
+     * @return the number of events handed to the sink
+     */
+    public long parse(Path logFile, Consumer<Event> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int parallelism = pool.getParallelism();
+            // Compressed input can't be split by byte offset; LogInput inflates it in parallel instead
+            if (size < 2 * MIN_CHUNK_BYTES || parallelism < 2 || LogInput.isCompressed(logFile)) {
+                return parserFactory.get().parse(logFile, sink);
+            }
+
+            long target = Math.clamp(size / (parallelism * 4L), MIN_CHUNK_BYTES, MAX_CHUNK_BYTES);
+            ArrayList<long[]> chunks = splitIntoChunks(channel, size, target);
+            int maxInFlight = maxInFlight(parallelism, target);
+
+            long emitted = 0;
+            int nextToSubmit = 0;
+            ArrayDeque<ForkJoinTask<ArrayList<Event>>> inFlight = new ArrayDeque<>();
+            while (nextToSubmit < chunks.size() || !inFlight.isEmpty()) {
+                // Keep the pool busy, but never more than 2 chunks per worker ahead of the sink
+                while (nextToSubmit < chunks.size() && inFlight.size() < maxInFlight) {
+                    long[] chunk = chunks.get(nextToSubmit++);
+                    inFlight.addLast(pool.submit(() -> parseChunk(channel, chunk[0], chunk[1])));
+                }
+
+                for (Event e : inFlight.removeFirst().join()) {
+                    // Chunks number their events from 0, so renumber in file order
+                    e.setPosition((int) emitted);
+                    sink.accept(e);
+                    emitted++;
+                }
+            }
+            return emitted;
+        }
+    }
+
+    /**
+     * Bytes of heap that chunks in flight may take.
+     */
+    static long heapShare() {
+        return Runtime.getRuntime().maxMemory() / HEAP_SHARE_DIVISOR;
+    }
+
+    /**
+     * 2 x parallelism, lowered to what fits in the heap share (at least 2, so parsing still overlaps the sink).
+     */
+    static int maxInFlight(int parallelism, long chunkBytes) {
+        long fits = heapShare() / (CHUNK_HEAP_FACTOR * chunkBytes);
+        return (int) Math.clamp(fits, 2, 2L * parallelism);
+    }
+
+    /**
+     * Cuts [0, size) into {start, end} ranges of about 'target' bytes whose starts (except the first) are header lines.
+     */
+    private ArrayList<long[]> splitIntoChunks(FileChannel channel, long size, long target) throws IOException {
+        LogParser headerCheck = parserFactory.get();
+
+        ArrayList<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = (size - start <= target) ? size : nextHeaderStart(channel, start + target, size, headerCheck);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the first line starting at or after 'from' that the parser treats as a header.
+     * Lines are only considered after a '\n', which is also where BufferedReader would cut them.
+     * @return the byte offset of that line, or 'size' if the rest of the file is one event
+     */
+    private long nextHeaderStart(FileChannel channel, long from, long size, LogParser headerCheck) throws IOException {
+        long lineStart = nextLineStart(channel, from - 1, size);
+        while (lineStart < size) {
+            String line = readLine(channel, lineStart, size);
+            if (headerCheck.isHeader(line)) {
+                return lineStart;
+            }
+            lineStart = nextLineStart(channel, lineStart, size);
+        }
+        return size;
+    }
+
+    // Offset just past the first '\n' at or after 'pos'
+    private long nextLineStart(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    // The line at 'lineStart' up to (not including) the first '\r' or '\n', as BufferedReader.readLine would see it
+    private String readLine(FileChannel channel, long lineStart, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        long pos = lineStart;
+        while (pos < size) {
+            int read = channel.read(buffer, pos);
+            if (read <= 0) break;
+            for (int i = buffer.position() - read; i < buffer.position(); i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    return new String(buffer.array(), 0, i, StandardCharsets.UTF_8);
+                }
+            }
+            pos += read;
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    private ArrayList<Event> parseChunk(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        // Chunks always start on a line boundary, so no multi-byte character is ever split
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+
+        ArrayList<Event> events = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(
+                new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+        parserFactory.get().parse(reader, events::add);
+        return events;
+    }
+}
@@ -0,0 +1,152 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated reports by incident fingerprint, so the same incident seen again (another pod, the next upload, a
+ * retry) does not cost another model call.
+ *
+ * Entries expire ttl after they were generated, and the least recently used ones are dropped beyond maxEntries.
+ * Calls are coalesced (single-flight): while the report for a fingerprint is being generated, every other caller
+ * asking for it waits for that one call instead of starting its own. A failed call is not cached; its waiters get
+ * the failure and the next caller tries again.
+ *
+ * Since the key is the fingerprint, a hit returns the report of an earlier occurrence of the incident, with that
+ * occurrence's timestamps and request ids.
+ */
+public class ReportCache {
+
+    public static final long DEFAULT_TTL_MILLIS = 60 * 60 * 1000L; // 1 hour
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    @FunctionalInterface
+    public interface Loader {
+        JsonNode load() throws IOException;
+    }
+
+    private final long ttlNanos;
+    private final LinkedHashMap<IncidentFingerprint, Entry> entries;
+
+    // Guarded by 'entries'
+    private long hits;
+    private long misses;
+    private long coalesced;
+
+    public ReportCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ReportCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        // Access order: iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IncidentFingerprint, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cached report for 'key', or the one 'loader' generates (on the calling thread) if there is none.
+     */
+    public JsonNode get(IncidentFingerprint key, Loader loader) throws IOException {
+        Entry entry;
+        boolean leader = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime(), ttlNanos)) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+                leader = true;
+                misses++;
+            } else if (entry.report.isDone()) {
+                hits++;
+            } else {
+                coalesced++;
+            }
+        }
+
+        if (leader) {
+            try {
+                JsonNode report = loader.load();
+                synchronized (entries) {
+                    entry.generatedAt = System.nanoTime();
+                }
+                entry.report.complete(report);
+                return report;
+            } catch (IOException | RuntimeException | Error e) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                entry.report.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return await(entry);
+    }
+
+    private static JsonNode await(Entry entry) throws IOException {
+        try {
+            return entry.report.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a report");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error fatal) throw fatal;
+            // Callers tell an invalid report from a failed call by type and list its errors, so it stays as it is
+            if (cause instanceof ReportGenerator.InvalidReportException invalid) throw invalid;
+            // Anything else is wrapped so the waiter's own stack shows up too
+            throw new IOException("Report generation failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Served from a finished entry. */
+    public long getHits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    /** Calls to the loader, i.e. model calls. */
+    public long getMisses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    /** Joined a call that was still running. */
+    public long getCoalesced() {
+        synchronized (entries) {
+            return coalesced;
+        }
+    }
+
+    private static class Entry {
+        final CompletableFuture<JsonNode> report = new CompletableFuture<>();
+        long generatedAt; // System.nanoTime(), set once the report is done
+
+        boolean isExpired(long now, long ttlNanos) {
+            return report.isDone() && now - generatedAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.LogTriage.LogTriage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The service's single ReportGenerator, so every upload shares one ReportCache: the same incident uploaded by
+ * many clients (or again and again) is reported by one model call.
+ */
+@Configuration
+public class ReportConfiguration {
+
+    @Bean
+    public ReportGenerator reportGenerator(@Value("${logtriage.report.model:gemini}") String model,
+                                           @Value("${logtriage.report.schema:" + ReportGenerator.DEFAULT_SCHEMA + "}") String schema,
+                                           @Value("${logtriage.report.prompt-max-chars:" + PromptBuilder.DEFAULT_MAX_CHARS + "}") int promptMaxChars,
+                                           @Value("${logtriage.report.cache-ttl-ms:" + ReportCache.DEFAULT_TTL_MILLIS + "}") long cacheTtlMillis,
+                                           @Value("${logtriage.report.cache-max-entries:" + ReportCache.DEFAULT_MAX_ENTRIES + "}") int cacheMaxEntries) {
+        return new ReportGenerator(new PromptBuilder(SecurityScanner.getDefault(), promptMaxChars),
+                ModelClient.named(model),
+                new ReportCache(cacheTtlMillis, cacheMaxEntries),
+                schema);
+    }
+}
@@ -0,0 +1,107 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.ValidationMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The `report` pipeline: LogBundle -> PromptBuilder -> ModelClient -> schema check, with the result cached in a
+ * ReportCache under the bundle's IncidentFingerprint. A hundred bundles of the same incident cost one model call.
+ */
+public class ReportGenerator {
+
+    public static final String DEFAULT_SCHEMA = "spec/triage-report.schema.json";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SchemaValidator validator = new SchemaValidator();
+    private final PromptBuilder prompts;
+    private final ModelClient model;
+    private final ReportCache cache;
+    private final String schemaPath;
+
+    public ReportGenerator(ModelClient model) {
+        this(new PromptBuilder(), model, new ReportCache(), DEFAULT_SCHEMA);
+    }
+
+    public ReportGenerator(PromptBuilder prompts, ModelClient model, ReportCache cache, String schemaPath) {
+        this.prompts = prompts;
+        this.model = model;
+        this.cache = cache;
+        this.schemaPath = schemaPath;
+    }
+
+    public ReportCache getCache() {
+        return cache;
+    }
+
+    /**
+     * The report for 'bundle'. The returned tree is shared with the cache: copy it before changing it.
+     * @throws InvalidReportException if the model's answer is not a report valid against the schema
+     */
+    public JsonNode generate(LogBundle bundle) throws IOException {
+        return cache.get(IncidentFingerprint.of(bundle), () -> callModel(bundle));
+    }
+
+    private JsonNode callModel(LogBundle bundle) throws IOException {
+        String prompt = prompts.build(bundle);
+
+        long started = TriageMetrics.start();
+        String answer;
+        try {
+            answer = model.complete(prompt);
+        } finally {
+            TriageMetrics.stop(TriageMetrics.Stage.MODEL_CALL, started);
+        }
+
+        JsonNode report;
+        try {
+            report = mapper.readTree(stripCodeFence(answer));
+        } catch (JsonProcessingException e) {
+            throw new InvalidReportException(List.of("Not JSON: " + e.getOriginalMessage()));
+        }
+        if (report == null || !report.isObject()) {
+            throw new InvalidReportException(List.of("Expected a JSON object"));
+        }
+
+        Set<ValidationMessage> violations = validator.validate(report, schemaPath);
+        if (!violations.isEmpty()) {
+            List<String> errors = new ArrayList<>();
+            for (ValidationMessage violation : violations) {
+                errors.add(violation.getMessage());
+            }
+            throw new InvalidReportException(errors);
+        }
+        return report;
+    }
+
+    // Models sometimes wrap JSON in ```json ... ``` even when told not to
+    private static String stripCodeFence(String answer) {
+        String trimmed = answer.trim();
+        if (!trimmed.startsWith("```")) return trimmed;
+        int start = trimmed.indexOf('\n');
+        int end = trimmed.lastIndexOf("```");
+        return (start < 0 || end <= start) ? trimmed : trimmed.substring(start + 1, end);
+    }
+
+    /**
+     * The model answered, but not with a valid report. Never cached.
+     */
+    public static class InvalidReportException extends IOException {
+        private final List<String> errors;
+
+        InvalidReportException(List<String> errors) {
+            super("Invalid report: " + String.join("; ", errors));
+            this.errors = errors;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.LogTriage.LogTriage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The known-issues runbook (kb/runbook.md) as an in-memory inverted index, so the entries that fit an incident
+ * can be attached to every bundle and report.
+ *
+ * Runbook format, one entry per line ("#" lines and blank lines are skipped):
+ *   3.QueryTimeoutException / SQLTimeoutException → causes → Checks: ... → Fix: ...
+ *
+ * Entries are scored with BM25 over their weighted fields (the title counts most, then causes, then checks and
+ * fix). Terms are lower-cased words, and CamelCase words also index their parts, so "QueryTimeoutException"
+ * matches itself strongly and "timeout" weakly. The per-posting BM25 weight is computed once when the index is
+ * built; a lookup only adds up the postings of the query terms, which stays well under a millisecond for
+ * thousands of entries.
+ */
+public class RunbookIndex {
+
+    public static final String DEFAULT_RUNBOOK = "kb/runbook.md";
+
+    private static final String FIELD_SEPARATOR = "→";
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float CAUSES_WEIGHT = 1.5f;
+    private static final float CHECKS_WEIGHT = 0.5f;
+    private static final float FIX_WEIGHT = 0.5f;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Matches scoring below this fraction of the best one are left out
+    private static final float MIN_RELATIVE_SCORE = 0.3f;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "e", "for", "from", "g", "if", "in",
+            "into", "is", "it", "no", "not", "of", "on", "or", "s", "so", "that", "the", "then", "this", "to",
+            "t", "when", "where", "with", "you", "your");
+
+    private static volatile RunbookIndex defaultIndex;
+
+    private final Entry[] entries;
+    private final HashMap<String, Integer> termIds = new HashMap<>();
+    private final int[][] postingDocs;      // term id -> entries containing it
+    private final float[][] postingWeights; // term id -> BM25 weight of the term in each of those entries
+
+    private RunbookIndex(List<Entry> entries) {
+        this.entries = entries.toArray(new Entry[0]);
+
+        // 1. Weighted term frequencies and lengths per entry
+        ArrayList<HashMap<String, Float>> frequencies = new ArrayList<>(entries.size());
+        float[] lengths = new float[entries.size()];
+        float totalLength = 0;
+        for (int doc = 0; doc < this.entries.length; doc++) {
+            Entry entry = this.entries[doc];
+            HashMap<String, Float> tf = new HashMap<>();
+            BiConsumer<String, Float> add = (term, weight) -> tf.merge(term, weight, Float::sum);
+            tokenize(entry.title, TITLE_WEIGHT, add);
+            tokenize(entry.causes, CAUSES_WEIGHT, add);
+            tokenize(entry.checks, CHECKS_WEIGHT, add);
+            tokenize(entry.fix, FIX_WEIGHT, add);
+            for (float weight : tf.values()) lengths[doc] += weight;
+            totalLength += lengths[doc];
+            frequencies.add(tf);
+        }
+
+        // 2. Postings, in entry order
+        ArrayList<ArrayList<Integer>> docs = new ArrayList<>();
+        for (int doc = 0; doc < this.entries.length; doc++) {
+            for (String term : frequencies.get(doc).keySet()) {
+                Integer id = termIds.get(term);
+                if (id == null) {
+                    id = docs.size();
+                    termIds.put(term, id);
+                    docs.add(new ArrayList<>());
+                }
+                docs.get(id).add(doc);
+            }
+        }
+
+        // 3. BM25 weight of every posting
+        float averageLength = this.entries.length == 0 ? 1 : Math.max(1e-6f, totalLength / this.entries.length);
+        this.postingDocs = new int[docs.size()][];
+        this.postingWeights = new float[docs.size()][];
+        for (Map.Entry<String, Integer> term : termIds.entrySet()) {
+            ArrayList<Integer> list = docs.get(term.getValue());
+            int n = list.size();
+            double idf = Math.log(1 + (this.entries.length - n + 0.5) / (n + 0.5));
+            int[] postingDoc = new int[n];
+            float[] postingWeight = new float[n];
+            for (int i = 0; i < n; i++) {
+                int doc = list.get(i);
+                float tf = frequencies.get(doc).get(term.getKey());
+                float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                postingDoc[i] = doc;
+                postingWeight[i] = (float) (idf * tf * (K1 + 1) / (tf + norm));
+            }
+            postingDocs[term.getValue()] = postingDoc;
+            postingWeights[term.getValue()] = postingWeight;
+        }
+    }
+
+    /**
+     * The index of kb/runbook.md (relative to the working directory), unless replaced with setDefault.
+     */
+    public static RunbookIndex getDefault() {
+        RunbookIndex index = defaultIndex;
+        if (index == null) {
+            synchronized (RunbookIndex.class) {
+                if (defaultIndex == null) {
+                    defaultIndex = loadIfPresent(Paths.get(DEFAULT_RUNBOOK));
+                }
+                index = defaultIndex;
+            }
+        }
+        return index;
+    }
+
+    public static void setDefault(RunbookIndex index) {
+        defaultIndex = index;
+    }
+
+    public static RunbookIndex load(Path runbook) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(runbook, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Like load, but a missing or unreadable runbook gives an empty index (and a warning) instead of an error.
+     */
+    public static RunbookIndex loadIfPresent(Path runbook) {
+        try {
+            return load(runbook);
+        } catch (IOException e) {
+            System.err.println("⚠️ No runbook matches: could not read " + runbook + " (" + e.getMessage() + ")");
+            return new RunbookIndex(List.of());
+        }
+    }
+
+    static RunbookIndex parse(BufferedReader reader) throws IOException {
+        ArrayList<Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            // "3." numbering is optional
+            int digits = 0;
+            while (digits < trimmed.length() && Character.isDigit(trimmed.charAt(digits))) digits++;
+            if (digits > 0 && digits < trimmed.length() && trimmed.charAt(digits) == '.') {
+                trimmed = trimmed.substring(digits + 1).trim();
+            }
+
+            String[] parts = trimmed.split(FIELD_SEPARATOR);
+            StringBuilder causes = new StringBuilder();
+            String checks = "";
+            String fix = "";
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i].trim();
+                if (part.startsWith("Checks:")) {
+                    checks = part.substring("Checks:".length()).trim();
+                } else if (part.startsWith("Fix:")) {
+                    fix = part.substring("Fix:".length()).trim();
+                } else {
+                    if (!causes.isEmpty()) causes.append(" → ");
+                    causes.append(part);
+                }
+            }
+            entries.add(new Entry(entries.size() + 1, parts[0].trim(), causes.toString(), checks, fix));
+        }
+        return new RunbookIndex(entries);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Collects weighted query text (exception classes, messages, components...), then ranks the entries.
+     */
+    public class Query {
+        private final HashMap<String, Float> terms = new HashMap<>();
+
+        public Query add(String text, float weight) {
+            tokenize(text, weight, (term, w) -> terms.merge(term, w, Float::sum));
+            return this;
+        }
+
+        /**
+         * At most 'limit' entries, best first; none if limit <= 0. Weak matches relative to the best one are
+         * dropped.
+         */
+        public List<Match> top(int limit) {
+            if (limit <= 0 || entries.length == 0 || terms.isEmpty()) return List.of();
+
+            float[] scores = new float[entries.length];
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                Integer id = termIds.get(term.getKey());
+                if (id == null) continue;
+                int[] docs = postingDocs[id];
+                float[] weights = postingWeights[id];
+                for (int i = 0; i < docs.length; i++) {
+                    scores[docs[i]] += term.getValue() * weights[i];
+                }
+            }
+
+            // Insertion into a 'limit'-sized best-first list; ties keep runbook order
+            int[] best = new int[limit];
+            int count = 0;
+            for (int doc = 0; doc < scores.length; doc++) {
+                if (scores[doc] <= 0) continue;
+                if (count == limit && scores[doc] <= scores[best[count - 1]]) continue;
+                int at = Math.min(count, limit - 1);
+                while (at > 0 && scores[best[at - 1]] < scores[doc]) {
+                    best[at] = best[at - 1];
+                    at--;
+                }
+                best[at] = doc;
+                if (count < limit) count++;
+            }
+
+            ArrayList<Match> matches = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (scores[best[i]] < MIN_RELATIVE_SCORE * scores[best[0]]) break;
+                matches.add(new Match(entries[best[i]], scores[best[i]]));
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Splits 'text' into lower-case words of letters and digits. A CamelCase word ("SQLTimeoutException") is
+     * emitted whole and as its parts ("sql", "timeout", "exception").
+     */
+    static void tokenize(String text, float weight, BiConsumer<String, Float> sink) {
+        if (text == null) return;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (start == i) break;
+
+            String word = text.substring(start, i);
+            emit(word, weight, sink);
+
+            // CamelCase parts: split before an upper case letter that follows a lower case one or starts a
+            // capitalised word after an acronym ("SQLTimeout" -> "SQL" | "Timeout")
+            int partStart = 0;
+            ArrayList<String> parts = new ArrayList<>();
+            for (int j = 1; j <= word.length(); j++) {
+                boolean boundary = j == word.length();
+                if (!boundary) {
+                    char previous = word.charAt(j - 1);
+                    char current = word.charAt(j);
+                    boundary = Character.isUpperCase(current) && (Character.isLowerCase(previous)
+                            || (Character.isUpperCase(previous) && j + 1 < word.length()
+                                && Character.isLowerCase(word.charAt(j + 1))));
+                }
+                if (boundary) {
+                    parts.add(word.substring(partStart, j));
+                    partStart = j;
+                }
+            }
+            if (parts.size() > 1) {
+                for (String part : parts) emit(part, weight, sink);
+            }
+        }
+    }
+
+    private static void emit(String word, float weight, BiConsumer<String, Float> sink) {
+        String term = word.toLowerCase(Locale.ROOT);
+        if (!STOP_WORDS.contains(term)) sink.accept(term, weight);
+    }
+
+    public static class Entry {
+        private final int number;
+        private final String title;
+        private final String causes;
+        private final String checks;
+        private final String fix;
+
+        Entry(int number, String title, String causes, String checks, String fix) {
+            this.number = number;
+            this.title = title;
+            this.causes = causes;
+            this.checks = checks;
+            this.fix = fix;
+        }
+
+        public int getNumber() { return number; }     // 1-based position in the runbook
+        public String getTitle() { return title; }
+        public String getCauses() { return causes; }
+        public String getChecks() { return checks; }
+        public String getFix() { return fix; }
+    }
+
+    public static class Match {
+        private final Entry entry;
+        private final float score;
+
+        Match(Entry entry, float score) {
+            this.entry = entry;
+            this.score = score;
+        }
+
+        public Entry getEntry() { return entry; }
+        public float getScore() { return score; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "#%d %s (%.2f)", entry.number, entry.title, score);
+        }
+    }
+}
@@ -2,19 +2,31 @@ package com.LogTriage.LogTriage;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SchemaValidator {
 
+    // Factory and compiled schemas are thread-safe and shared by every validator instance
+    private static final JsonSchemaFactory FACTORY = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V201909);
+    private static final ConcurrentHashMap<Path, CachedSchema> SCHEMAS = new ConcurrentHashMap<>();
+
     private final ObjectMapper mapper;
 
     public SchemaValidator() {
@@ -28,27 +40,134 @@ public class SchemaValidator {
      * @return true if valid, false if invalid
      */
     public boolean validate(String jsonFilePath, String schemaFilePath) throws IOException {
-        // 1. Load the Schema
-        JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V201909);
-        InputStream schemaStream = new FileInputStream(new File(schemaFilePath));
-        JsonSchema schema = factory.getSchema(schemaStream);
-
-        // 2. Load the Data
-        JsonNode data = mapper.readTree(new File(jsonFilePath));
-
-        // 3. Validate
-        Set<ValidationMessage> errors = schema.validate(data);
+        ValidationResult result = validateFile(Paths.get(jsonFilePath), schema(Paths.get(schemaFilePath)));
 
-        // 4. Report Results
-        if (errors.isEmpty()) {
+        if (result.isValid()) {
             System.out.println("✅ VALID: " + jsonFilePath);
             return true;
         } else {
             System.out.println("❌ INVALID: " + jsonFilePath);
-            for (ValidationMessage error : errors) {
-                System.out.println("   -> " + error.getMessage());
+            for (String error : result.getErrors()) {
+                System.out.println("   -> " + error);
             }
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Validates an already-parsed document. Returns the violations (empty when valid).
+     */
+    public Set<ValidationMessage> validate(JsonNode data, String schemaFilePath) throws IOException {
+        return schema(Paths.get(schemaFilePath)).validate(data);
+    }
+
+    /**
+     * Validates a bundle without going through a file: the bundle is written into a TokenBuffer
+     * and read back as a tree.
+     */
+    public Set<ValidationMessage> validate(LogBundle bundle, String schemaFilePath) throws IOException {
+        try (TokenBuffer buffer = new TokenBuffer(mapper, false)) {
+            bundle.writeJson(buffer);
+            return validate((JsonNode) mapper.readTree(buffer.asParser()), schemaFilePath);
+        }
+    }
+
+    /**
+     * Validates every "*.json" file in 'directory' (e.g., "golden") in parallel.
+     * Unreadable or malformed files are reported as invalid results, nothing is printed.
+     * @return one result per file, sorted by file name
+     */
+    public List<ValidationResult> validateDirectory(String directory, String schemaFilePath) throws IOException {
+        return validateDirectory(Paths.get(directory), "*.json", schemaFilePath);
+    }
+
+    public List<ValidationResult> validateDirectory(Path directory, String glob, String schemaFilePath) throws IOException {
+        // 1. Compile once up front so workers never race on the cache (and a bad schema fails fast)
+        JsonSchema schema = schema(Paths.get(schemaFilePath));
+
+        // 2. Collect the files
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) files.add(file);
+            }
+        }
+        Collections.sort(files);
+
+        // 3. Parse + validate in parallel; the ordered stream keeps results in file order
+        return files.parallelStream()
+                .map(file -> validateFile(file, schema))
+                .toList();
+    }
+
+    private ValidationResult validateFile(Path file, JsonSchema schema) {
+        JsonNode data;
+        try {
+            data = mapper.readTree(file.toFile());
+        } catch (IOException e) {
+            return new ValidationResult(file, List.of("Unreadable JSON: " + e.getMessage()));
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (ValidationMessage error : schema.validate(data)) {
+            errors.add(error.getMessage());
+        }
+        return new ValidationResult(file, errors);
+    }
+
+    /**
+     * Returns the compiled schema, recompiling only when the file's modification time changed.
+     */
+    static JsonSchema schema(Path schemaPath) throws IOException {
+        Path key = schemaPath.toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(key);
+
+        CachedSchema cached = SCHEMAS.get(key);
+        if (cached != null && cached.modified.equals(modified)) {
+            return cached.schema;
+        }
+        try {
+            // compute() serializes concurrent recompiles of the same schema
+            return SCHEMAS.compute(key, (path, current) -> current != null && current.modified.equals(modified)
+                    ? current
+                    : compile(path, modified)).schema;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static CachedSchema compile(Path path, FileTime modified) {
+        try {
+            JsonNode schemaNode = new ObjectMapper().readTree(path.toFile());
+            JsonSchema schema = FACTORY.getSchema(schemaNode);
+            schema.initializeValidators(); // resolve everything now instead of lazily on the first validate
+            return new CachedSchema(modified, schema);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class CachedSchema {
+        final FileTime modified;
+        final JsonSchema schema;
+
+        CachedSchema(FileTime modified, JsonSchema schema) {
+            this.modified = modified;
+            this.schema = schema;
+        }
+    }
+
+    public static class ValidationResult {
+        private final Path file;
+        private final List<String> errors;
+
+        ValidationResult(Path file, List<String> errors) {
+            this.file = file;
+            this.errors = errors;
+        }
+
+        public Path getFile() { return file; }
+        public List<String> getErrors() { return errors; }
+        public boolean isValid() { return errors.isEmpty(); }
+    }
+}
@@ -0,0 +1,336 @@
+package com.LogTriage.LogTriage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Flags prompt-injection text anywhere in an event (header and continuation lines), in one pass per line.
+ * All rule phrases are compiled into a single KeywordAutomaton. Runs of whitespace collapse to one symbol and
+ * letters fold ASCII-only, so a phrase "system prompt" behaves exactly like the regex "(?i)system\s+prompt"
+ * (LogAnalyzer.SECURITY_PATTERN is kept as the reference for that).
+ *
+ * Rule file format (one phrase per line, '#' starts a comment):
+ *   PROMPT_INJECTION_TEXT: ignore previous instructions
+ *   PROMPT_INJECTION_TEXT: ignore all previous instructions
+ */
+public class SecurityScanner {
+
+    private static final String DEFAULT_RULES = "/security-rules.txt";
+    private static final char SPACE = ' '; // the symbol a whitespace run collapses to
+
+    // Events per parallel task in scanAll and StreamScan; small enough to balance, large enough to amortize the fork
+    private static final int SCAN_BATCH = 4096;
+
+    private static volatile SecurityScanner defaultScanner;
+
+    private final String[] ruleTypes;    // rule id -> flag type, e.g. "PROMPT_INJECTION_TEXT"
+    private final String[] rulePhrases;  // rule id -> normalized phrase
+    private final KeywordAutomaton automaton;
+    private final byte[] columns;        // ASCII char -> automaton column
+    private final int spaceColumn;
+
+    private SecurityScanner(List<String> types, List<String> phrases) {
+        this.ruleTypes = types.toArray(new String[0]);
+        this.rulePhrases = phrases.toArray(new String[0]);
+        this.automaton = new KeywordAutomaton(phrases);
+
+        // ASCII folding (upper -> lower, any \s char -> ' ') baked into one lookup; non-ASCII never matches
+        this.columns = new byte[128];
+        for (char c = 0; c < 128; c++) {
+            char folded = isSpace(c) ? SPACE : (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+            columns[c] = (byte) automaton.column(folded);
+        }
+        this.spaceColumn = automaton.column(SPACE);
+    }
+
+    /**
+     * The scanner built from the bundled security-rules.txt, unless replaced with setDefault.
+     */
+    public static SecurityScanner getDefault() {
+        SecurityScanner scanner = defaultScanner;
+        if (scanner == null) {
+            synchronized (SecurityScanner.class) {
+                if (defaultScanner == null) {
+                    try (InputStream in = SecurityScanner.class.getResourceAsStream(DEFAULT_RULES)) {
+                        if (in == null) throw new IllegalStateException("Missing resource " + DEFAULT_RULES);
+                        defaultScanner = parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                scanner = defaultScanner;
+            }
+        }
+        return scanner;
+    }
+
+    public static void setDefault(SecurityScanner scanner) {
+        defaultScanner = scanner;
+    }
+
+    public static SecurityScanner load(Path rulesFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(rulesFile, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    static SecurityScanner parse(BufferedReader reader) throws IOException {
+        List<String> types = new ArrayList<>();
+        List<String> phrases = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            if (line.isBlank()) continue;
+
+            int colon = line.indexOf(':');
+            if (colon <= 0) throw new IOException("Line " + lineNumber + ": expected 'TYPE: phrase'");
+            String phrase = String.join(" ", line.substring(colon + 1).trim().split("\\s+")).toLowerCase(Locale.ROOT);
+            if (phrase.isEmpty()) throw new IOException("Line " + lineNumber + ": empty phrase");
+            for (int i = 0; i < phrase.length(); i++) {
+                if (phrase.charAt(i) >= 128) {
+                    throw new IOException("Line " + lineNumber + ": phrase '" + phrase + "' is not ASCII");
+                }
+            }
+            types.add(line.substring(0, colon).trim());
+            phrases.add(phrase);
+        }
+        return new SecurityScanner(types, phrases);
+    }
+
+    /**
+     * True if any rule matches somewhere in 'text'. Stops at the first match.
+     */
+    public boolean matches(String text) {
+        if (text == null) return false;
+        int state = 0;
+        int previous = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int column = c < 128 ? columns[c] : 0;
+            // Repeats of the whitespace column collapse; repeats of column 0 stay at the root anyway
+            if (column == previous && (column == spaceColumn || column == 0)) continue;
+            previous = column;
+            state = automaton.next(state, column);
+            if (automaton.outputs(state).length > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Scans every raw line of 'event', marks it as a security risk on a match and returns the findings
+     * (empty list, no allocation, when clean).
+     */
+    public List<Finding> scan(Event event) {
+        List<Finding> findings = List.of();
+        List<String> lines = event.getRawLines();
+        for (int lineIndex = 0; lineIndex < lines.size(); lineIndex++) {
+            String line = lines.get(lineIndex);
+            if (!matches(line)) continue;
+            if (findings.isEmpty()) findings = new ArrayList<>();
+            collect(event.getPosition(), lineIndex, line, findings);
+        }
+        // Events built by hand may only carry a message
+        if (lines.isEmpty() && matches(event.getMessage())) {
+            findings = new ArrayList<>();
+            collect(event.getPosition(), -1, event.getMessage(), findings);
+        }
+        if (!findings.isEmpty()) {
+            event.setSecurityRisk(true);
+        }
+        return findings;
+    }
+
+    /**
+     * Scans the whole event stream in parallel (common ForkJoinPool) and flags every matching event.
+     * @return all findings, ordered by event then line then offset
+     */
+    public List<Finding> scanAll(List<Event> events) {
+        int batches = (events.size() + SCAN_BATCH - 1) / SCAN_BATCH;
+        return IntStream.range(0, batches).parallel()
+                .mapToObj(batch -> scanBatch(events.subList(batch * SCAN_BATCH,
+                        Math.min(events.size(), (batch + 1) * SCAN_BATCH))))
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Like scanAll for an event stream of any length: see StreamScan.
+     */
+    public StreamScan scanStream(Consumer<Event> downstream) {
+        return new StreamScan(downstream, ForkJoinPool.commonPool());
+    }
+
+    private List<Finding> scanBatch(List<Event> events) {
+        List<Finding> found = new ArrayList<>();
+        for (Event event : events) {
+            found.addAll(scan(event));
+        }
+        return found;
+    }
+
+    /**
+     * Replaces every matched span in 'line' with "[REDACTED:<type>]", e.g. before log text goes to a model.
+     */
+    public String redact(String line) {
+        if (!matches(line)) return line;
+
+        List<Finding> findings = new ArrayList<>();
+        collect(-1, -1, line, findings);
+        StringBuilder sb = new StringBuilder(line.length());
+        int copied = 0;
+        for (Finding f : findings) {
+            if (f.end <= copied) continue; // fully inside a span already redacted
+            sb.append(line, copied, Math.max(copied, f.start));
+            sb.append("[REDACTED:").append(f.type).append(']');
+            copied = f.end;
+        }
+        sb.append(line, copied, line.length());
+        return sb.toString();
+    }
+
+    private void collect(int eventPosition, int lineIndex, String line, List<Finding> findings) {
+        int state = 0;
+        int previous = -1;
+        int first = findings.size();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int column = c < 128 ? columns[c] : 0;
+            if (column == previous && (column == spaceColumn || column == 0)) continue;
+            previous = column;
+            state = automaton.next(state, column);
+            for (int id : automaton.outputs(state)) {
+                int start = startOf(line, i, automaton.keywordLength(id));
+                findings.add(new Finding(eventPosition, lineIndex, start, i + 1, ruleTypes[id], rulePhrases[id]));
+            }
+        }
+        // Matches are reported at their end; order them by start like a regex find() loop would
+        findings.subList(first, findings.size()).sort((a, b) -> a.start != b.start
+                ? Integer.compare(a.start, b.start)
+                : Integer.compare(b.end, a.end));
+    }
+
+    /**
+     * Walks back from the last matched char over 'symbols' symbols, counting each whitespace run as one.
+     * Phrases never start or end with a space, so this lands on the first matched char.
+     */
+    private static int startOf(String line, int last, int symbols) {
+        int j = last;
+        for (int n = 1; n < symbols; n++) {
+            j--;
+            if (isSpace(line.charAt(j))) {
+                while (j > 0 && isSpace(line.charAt(j - 1))) j--;
+            }
+        }
+        return j;
+    }
+
+    // Same set as the regex \s: [ \t\n\x0B\f\r]
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    /**
+     * Scans a stream of events on the pool in batches of SCAN_BATCH and hands them on to 'downstream' in their
+     * original order, each one already flagged. At most 2 x parallelism batches are buffered, so memory does not
+     * grow with the stream. Call finish() once the stream has ended.
+     */
+    public class StreamScan implements Consumer<Event> {
+        private final Consumer<Event> downstream;
+        private final ForkJoinPool pool;
+        private final int maxInFlight;
+        private final ArrayDeque<List<Event>> batches = new ArrayDeque<>();
+        private final ArrayDeque<ForkJoinTask<List<Finding>>> scans = new ArrayDeque<>();
+        private final List<Finding> findings = new ArrayList<>();
+        private ArrayList<Event> batch = new ArrayList<>(SCAN_BATCH);
+
+        StreamScan(Consumer<Event> downstream, ForkJoinPool pool) {
+            this.downstream = downstream;
+            this.pool = pool;
+            this.maxInFlight = 2 * pool.getParallelism();
+        }
+
+        @Override
+        public void accept(Event event) {
+            batch.add(event);
+            if (batch.size() == SCAN_BATCH) {
+                submit();
+            }
+        }
+
+        /**
+         * Scans and hands on the events still buffered.
+         * @return all findings, ordered by event then line then offset
+         */
+        public List<Finding> finish() {
+            if (!batch.isEmpty()) submit();
+            while (!scans.isEmpty()) {
+                drainOldest();
+            }
+            return findings;
+        }
+
+        private void submit() {
+            List<Event> events = batch;
+            batch = new ArrayList<>(SCAN_BATCH);
+            batches.addLast(events);
+            scans.addLast(pool.submit(() -> scanBatch(events)));
+            while (scans.size() > maxInFlight) {
+                drainOldest();
+            }
+        }
+
+        private void drainOldest() {
+            findings.addAll(scans.removeFirst().join());
+            for (Event event : batches.removeFirst()) {
+                downstream.accept(event);
+            }
+        }
+    }
+
+    public static class Finding {
+        private final int eventPosition;
+        private final int lineIndex;
+        private final int start;
+        private final int end;
+        private final String type;
+        private final String rule;
+
+        Finding(int eventPosition, int lineIndex, int start, int end, String type, String rule) {
+            this.eventPosition = eventPosition;
+            this.lineIndex = lineIndex;
+            this.start = start;
+            this.end = end;
+            this.type = type;
+            this.rule = rule;
+        }
+
+        public int getEventPosition() { return eventPosition; }
+        public int getLineIndex() { return lineIndex; }   // index into getRawLines(), -1 for a bare message
+        public int getStart() { return start; }           // offset of the first matched char
+        public int getEnd() { return end; }               // exclusive
+        public String getType() { return type; }
+        public String getRule() { return rule; }
+
+        @Override
+        public String toString() {
+            return type + " \"" + rule + "\" at event " + eventPosition + ", line " + lineIndex + " [" + start + ", " + end + ")";
+        }
+    }
+}
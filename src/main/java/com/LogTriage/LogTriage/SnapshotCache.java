@@ -0,0 +1,204 @@
+package com.LogTriage.LogTriage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * A directory of EventSnapshots, one per log file, so running `bundle` again on the same log (with other options)
+ * maps the parsed events instead of re-parsing.
+ *
+ * Entries are named after a hash of the log's absolute path. A snapshot is only used if the log still has the
+ * size, mtime and sampled content hash recorded in it; otherwise it is rebuilt during the next parse.
+ * The modification time of a snapshot is its last use, and the least recently used ones are deleted while the
+ * directory is over its size cap. Several processes may share the directory: snapshots are written to a temp
+ * file and moved into place atomically.
+ */
+public class SnapshotCache {
+
+    public static final long DEFAULT_MAX_BYTES = 2L << 30; // 2 GB
+
+    private static final String SUFFIX = ".snap";
+    private static final int SAMPLE_BYTES = 1 << 16;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public SnapshotCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * $XDG_CACHE_HOME/logtriage/snapshots, or ~/.cache/logtriage/snapshots.
+     */
+    public static Path defaultDirectory() {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path base = (cacheHome != null && !cacheHome.isEmpty())
+                ? Paths.get(cacheHome)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return base.resolve("logtriage").resolve("snapshots");
+    }
+
+    /**
+     * The events of 'logFile': from its snapshot if it is current, otherwise parsed with 'parser' while a new
+     * snapshot is written. A cache that can't be read or written (read-only, full disk) never fails the parse,
+     * and a log larger than the size cap is parsed without a snapshot, since it would be evicted right away.
+     * @return the number of events handed to the sink
+     */
+    public long parse(Path logFile, MergedLogParser.FileParser parser, Consumer<Event> sink) throws IOException {
+        EventSnapshot snapshot = lookupQuietly(logFile);
+        if (snapshot != null) {
+            try (snapshot) {
+                return snapshot.forEach(sink);
+            }
+        }
+        if (Files.size(logFile) > maxBytes) {
+            return parser.parse(logFile, sink);
+        }
+
+        Path entry = entryFor(logFile);
+        Path temp = null;
+        EventSnapshot.Writer writer;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+            writer = new EventSnapshot.Writer(temp, logFile);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not store event snapshot of " + logFile + ": " + e.getMessage());
+            deleteQuietly(temp);
+            return parser.parse(logFile, sink);
+        }
+        try {
+            long count = parser.parse(logFile, writer.andThen(sink));
+            try {
+                writer.finish();
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                evict();
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not store event snapshot of " + logFile + ": " + e.getMessage());
+            }
+            return count;
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Only the snapshot is lost (e.g. the disk filled up); the temp file goes below
+            }
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // A leftover temp file is never read: only "*.snap" entries are
+        }
+    }
+
+    private EventSnapshot lookupQuietly(Path logFile) {
+        try {
+            return lookup(logFile);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not read the event snapshot of " + logFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The current snapshot of 'logFile', or null. A stale or unreadable one is deleted.
+     */
+    public EventSnapshot lookup(Path logFile) throws IOException {
+        Path entry = entryFor(logFile);
+        EventSnapshot snapshot;
+        try {
+            snapshot = EventSnapshot.open(entry);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            Files.deleteIfExists(entry);
+            return null;
+        }
+
+        if (!snapshot.matches(logFile)) {
+            snapshot.close();
+            Files.deleteIfExists(entry);
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis())); // LRU touch
+        } catch (IOException e) {
+            // Read-only cache: still usable, only the eviction order suffers
+        }
+        return snapshot;
+    }
+
+    private Path entryFor(Path logFile) {
+        String key = logFile.toAbsolutePath().normalize().toString();
+        return directory.resolve(String.format("%016x", IncidentFingerprint.hash64(key)) + SUFFIX);
+    }
+
+    /**
+     * Deletes least recently used snapshots until the directory fits in maxBytes.
+     */
+    private void evict() throws IOException {
+        ArrayList<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+                total += Files.size(entry);
+            }
+        }
+        if (total <= maxBytes) return;
+
+        entries.sort(Comparator.comparing(SnapshotCache::lastUsed));
+        for (Path entry : entries) {
+            if (total <= maxBytes) break;
+            long size = Files.size(entry);
+            if (Files.deleteIfExists(entry)) total -= size;
+        }
+    }
+
+    private static FileTime lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * CRC32C of the first and last SAMPLE_BYTES of the file: catches a log that was rewritten in place with the same
+     * size and mtime (e.g. restored from a backup) without reading gigabytes.
+     */
+    static long contentHash(Path logFile) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_BYTES);
+            channel.read(buffer, 0);
+            crc.update(buffer.flip());
+            if (size > SAMPLE_BYTES) {
+                buffer.clear();
+                channel.read(buffer, Math.max(SAMPLE_BYTES, size - SAMPLE_BYTES));
+                crc.update(buffer.flip());
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,291 @@
+package com.LogTriage.LogTriage;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares stack traces between events. The same 80-frame trace repeated thousands of times is stored once.
+ *
+ * The run of stack lines starting at an event's first "at ..." or "Caused by:" line ("at ...", "Caused by: ..."
+ * and "... N more" lines, back to back) is interned into the table's line table (one String and one parsed Line
+ * per distinct text), and becomes an int[] of line ids with a precomputed hash. Identical traces are hash-consed
+ * to a single StackTrace, which the events reference instead of their own copies of those lines, so memory grows
+ * with the number of distinct traces, not with occurrences. Any other text (messages, dumped payloads) stays on
+ * the event.
+ *
+ * Frames and "Caused by:" lines are parsed once, when first interned, and each trace keeps its app frames and
+ * causes, so LogBundle does not re-scan the lines with trim()/startsWith for every bundle.
+ *
+ * A table lives as long as the parse or triage run that owns it (see LogParser), and never holds more than
+ * maxLines lines and maxTraces traces: once full, new traces stay on their events, so a long-running follow
+ * or service does not grow with every distinct line it has ever seen.
+ * Thread-safe: the chunk parsers of one parallel parse share a table.
+ */
+public class StackTraceTable {
+
+    public enum Kind { FRAME, CAUSED_BY, MORE, OTHER }
+
+    public static final int DEFAULT_MAX_LINES = 1 << 18;
+    public static final int DEFAULT_MAX_TRACES = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxLines;
+    private final int maxTraces;
+    private final ConcurrentHashMap<String, Integer> lineIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<StackTrace, StackTrace> traces = new ConcurrentHashMap<>();
+    // id -> line; replaced (never modified in place below 'lineCount') when it grows
+    private volatile Line[] lines = new Line[INITIAL_CAPACITY];
+    private int lineCount; // guarded by 'this'
+
+    public StackTraceTable() {
+        this(DEFAULT_MAX_LINES, DEFAULT_MAX_TRACES);
+    }
+
+    public StackTraceTable(int maxLines, int maxTraces) {
+        this.maxLines = maxLines;
+        this.maxTraces = maxTraces;
+    }
+
+    /**
+     * Moves the event's stack trace (the stack lines from its first frame or "Caused by:" line on) into the table.
+     * Events without one, already attached, or whose trace no longer fits in a full table are left alone.
+     */
+    public void attach(Event event) {
+        if (event.getStackTrace() != null) return;
+        List<String> rawLines = event.getRawLines();
+
+        // 1. The trace starts at the first frame/cause after the header and ends before the next other line
+        int start = 1;
+        while (start < rawLines.size() && kindOf(rawLines.get(start)) == Kind.OTHER) start++;
+        if (start == rawLines.size()) return;
+        int end = start;
+        while (end < rawLines.size() && kindOf(rawLines.get(end)) != Kind.OTHER) end++;
+
+        // 2. Intern its lines and share the trace
+        int[] ids = new int[end - start];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = intern(rawLines.get(start + i));
+            if (ids[i] < 0) return;
+        }
+        StackTrace candidate = new StackTrace(this, ids);
+        StackTrace shared = traces.get(candidate);
+        if (shared == null) {
+            if (traces.size() >= maxTraces) return;
+            StackTrace existing = traces.putIfAbsent(candidate, candidate);
+            shared = existing != null ? existing : candidate;
+        }
+        event.setStackTrace(shared, start);
+    }
+
+    // The line's id, or -1 if it is new and the table is full
+    private int intern(String text) {
+        Integer id = lineIds.get(text);
+        if (id != null) return id;
+        synchronized (this) {
+            id = lineIds.get(text);
+            if (id == null) {
+                if (lineCount >= maxLines) return -1;
+                id = lineCount;
+                Line[] current = lines;
+                if (id == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[id] = new Line(text);
+                lines = current;
+                lineCount++;
+                // Published after the line is stored, so whoever finds the id can read it
+                lineIds.put(text, id);
+            }
+            return id;
+        }
+    }
+
+    public Line line(int id) {
+        return lines[id];
+    }
+
+    /** Distinct stack lines. */
+    public int lineCount() {
+        return lineIds.size();
+    }
+
+    /** Distinct traces. */
+    public int traceCount() {
+        return traces.size();
+    }
+
+    /**
+     * Same tests as line.trim().startsWith("at ") / ("Caused by:") / ("... " + digit), without copying the line.
+     */
+    static Kind kindOf(String line) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') start++;
+        while (end > start && line.charAt(end - 1) <= ' ') end--;
+        if (end - start > 3 && line.startsWith("at ", start)) return Kind.FRAME;
+        if (line.startsWith("Caused by:", start)) return Kind.CAUSED_BY;
+        // "... 12 more", "... 42 common frames omitted"
+        if (end - start > 4 && line.startsWith("... ", start) && Character.isDigit(line.charAt(start + 4))) {
+            return Kind.MORE;
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * One distinct stack line, parsed once.
+     */
+    public static class Line {
+        private final String text;
+        private final Kind kind;
+        private final String frame;        // FRAME: the line without "at "
+        private final boolean appFrame;    // FRAME: not a java/sun/jdk internal
+        private final String causeClass;   // CAUSED_BY
+        private final String causeMessage; // CAUSED_BY, "" when there is none
+
+        Line(String text) {
+            this.text = text;
+            this.kind = kindOf(text);
+            String trimmed = text.trim();
+            if (kind == Kind.FRAME) {
+                this.frame = trimmed.substring(3);
+                this.appFrame = !trimmed.startsWith("at java.") && !trimmed.startsWith("at sun.")
+                        && !trimmed.startsWith("at jdk.");
+                this.causeClass = null;
+                this.causeMessage = null;
+            } else if (kind == Kind.CAUSED_BY) {
+                String[] parts = trimmed.substring(10).trim().split(":", 2);
+                this.frame = null;
+                this.appFrame = false;
+                this.causeClass = parts[0];
+                this.causeMessage = (parts.length > 1) ? parts[1].trim() : "";
+            } else {
+                this.frame = null;
+                this.appFrame = false;
+                this.causeClass = null;
+                this.causeMessage = null;
+            }
+        }
+
+        public String getText() { return text; }
+        public Kind getKind() { return kind; }
+        public String getFrame() { return frame; }
+        public boolean isAppFrame() { return appFrame; }
+        public String getCauseClass() { return causeClass; }
+        public String getCauseMessage() { return causeMessage; }
+    }
+
+    /**
+     * A hash-consed trace: equal line ids means the same instance (when both came from the same table).
+     * Also a read-only List of its lines' text.
+     */
+    public static class StackTrace extends AbstractList<String> implements RandomAccess {
+        private final StackTraceTable table;
+        private final int[] lineIds;
+        private final int hash;
+        private final String[] appFrames;   // in trace order
+        private final Line[] causes;        // "Caused by:" lines, in trace order
+
+        // Per-trace results of matchers that would otherwise re-scan every occurrence
+        private volatile Memo<EventRanker, Boolean> appFrameMemo;
+        private volatile Memo<ComponentMatcher, Set<String>> componentMemo;
+
+        StackTrace(StackTraceTable table, int[] lineIds) {
+            this.table = table;
+            this.lineIds = lineIds;
+            this.hash = Arrays.hashCode(lineIds);
+
+            ArrayList<String> frames = new ArrayList<>();
+            ArrayList<Line> causedBy = new ArrayList<>();
+            for (int id : lineIds) {
+                Line line = table.line(id);
+                if (line.appFrame) frames.add(line.frame);
+                if (line.kind == Kind.CAUSED_BY) causedBy.add(line);
+            }
+            this.appFrames = frames.toArray(new String[0]);
+            this.causes = causedBy.toArray(new Line[0]);
+        }
+
+        @Override
+        public String get(int index) {
+            return table.line(lineIds[index]).text;
+        }
+
+        @Override
+        public int size() {
+            return lineIds.length;
+        }
+
+        public int lineId(int index) {
+            return lineIds[index];
+        }
+
+        /**
+         * The first 'limit' frames that are not java/sun/jdk internals, without "at ".
+         */
+        public List<String> getAppFrames(int limit) {
+            return Arrays.asList(appFrames).subList(0, Math.min(limit, appFrames.length));
+        }
+
+        public List<Line> getCauses() {
+            return Arrays.asList(causes);
+        }
+
+        boolean hasAppFrame(EventRanker ranker) {
+            Memo<EventRanker, Boolean> memo = appFrameMemo;
+            if (memo == null || memo.owner != ranker) {
+                boolean found = false;
+                for (int id : lineIds) {
+                    if (ranker.hasAppFrame(table.line(id).text)) {
+                        found = true;
+                        break;
+                    }
+                }
+                memo = new Memo<>(ranker, found);
+                appFrameMemo = memo;
+            }
+            return memo.value;
+        }
+
+        Set<String> components(ComponentMatcher matcher) {
+            Memo<ComponentMatcher, Set<String>> memo = componentMemo;
+            if (memo == null || memo.owner != matcher) {
+                HashSet<String> found = new HashSet<>();
+                for (int id : lineIds) {
+                    matcher.findAll(table.line(id).text, found);
+                }
+                memo = new Memo<>(matcher, Set.copyOf(found));
+                componentMemo = memo;
+            }
+            return memo.value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            return o instanceof StackTrace other && hash == other.hash && table == other.table
+                    && Arrays.equals(lineIds, other.lineIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Memo<K, V> {
+        final K owner;
+        final V value;
+
+        Memo(K owner, V value) {
+            this.owner = owner;
+            this.value = value;
+        }
+    }
+}
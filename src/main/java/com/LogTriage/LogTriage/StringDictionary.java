@@ -0,0 +1,44 @@
+package com.LogTriage.LogTriage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Maps repeated strings (levels, loggers, threads, ...) to small int codes and back.
+ * null is encoded as -1.
+ */
+public class StringDictionary {
+
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private final ArrayList<String> values = new ArrayList<>();
+
+    public int encode(String value) {
+        if (value == null) return -1;
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    public String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Rough retained size: every distinct string once, plus the two lookup structures.
+     */
+    long estimatedBytes() {
+        long bytes = 0;
+        for (String value : values) {
+            bytes += 40 + value.length() + 40; // String + byte[] (Latin-1) + map entry and boxed code
+        }
+        return bytes;
+    }
+}
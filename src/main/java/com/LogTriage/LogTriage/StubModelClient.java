@@ -0,0 +1,52 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers without calling any model: echoes the bundle from the prompt and writes "notes" from its own fields.
+ * For offline runs and tests; the report is valid against the schema whenever the bundle is.
+ */
+public class StubModelClient implements ModelClient {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public String complete(String prompt) throws IOException {
+        calls.incrementAndGet();
+        int marker = prompt.lastIndexOf(PromptBuilder.BUNDLE_MARKER);
+        if (marker < 0) throw new IOException("Prompt has no " + PromptBuilder.BUNDLE_MARKER + " section");
+
+        ObjectNode report = (ObjectNode) mapper.readTree(prompt.substring(marker + PromptBuilder.BUNDLE_MARKER.length()));
+        StringBuilder notes = new StringBuilder("Offline stub report, no model was called.");
+        JsonNode exception = report.path("primaryException").path("class");
+        if (!exception.asText().isEmpty()) {
+            notes.append(" Primary exception: ").append(exception.asText()).append('.');
+        }
+        JsonNode frames = report.path("topAppFrames");
+        if (!frames.isEmpty()) {
+            notes.append(" Top app frame: ").append(frames.get(0).asText()).append('.');
+        }
+        for (JsonNode cause : report.path("causedByChain")) {
+            notes.append(" Caused by ").append(cause.path("class").asText()).append('.');
+        }
+        JsonNode runbook = report.path("runbook");
+        if (!runbook.isEmpty()) {
+            notes.append(" See runbook: ").append(runbook.get(0).path("title").asText()).append('.');
+        }
+        report.put("notes", notes.toString());
+        return mapper.writeValueAsString(report);
+    }
+
+    /**
+     * How many prompts this client answered (lets tests check request coalescing).
+     */
+    public int getCalls() {
+        return calls.get();
+    }
+}
@@ -0,0 +1,225 @@
+package com.LogTriage.LogTriage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Online log template mining (Drain: He et al., "Drain: An Online Log Parsing Approach with Fixed Depth Tree").
+ *
+ * Each event becomes the token list [level, logger, message tokens...], where message tokens containing a digit
+ * (numbers, ids, IPs, "#551", durations...) are masked as "<*>". Events are routed through a fixed-depth prefix
+ * tree (token count, then the first PREFIX_TOKENS tokens) to a small list of templates and merged into the most
+ * similar one; positions that disagree turn into "<*>". So "Batch email processing: 0 emails sent" and
+ * "... 12 emails sent" end up as one template with a count instead of thousands of lines.
+ *
+ * A miner fed a whole file can be given a template cap: when it is reached, the less frequent half of the
+ * templates is dropped (their events are counted in getDroppedEvents), so the most frequent ones survive.
+ */
+public class TemplateMiner {
+
+    public static final String WILDCARD = "<*>";
+    // For a whole file (bundle --templates); a bundle's window is bounded already
+    public static final int DEFAULT_MAX_TEMPLATES = 10_000;
+
+    private static final int PREFIX_TOKENS = 3;        // level, logger, first message token
+    private static final double DEFAULT_SIMILARITY = 0.5;
+    static final int MAX_CHILDREN = 100;               // per tree node; further tokens share the "<*>" branch
+
+    private final double similarity;
+    private final int maxTemplates;
+    private long droppedEvents;
+    private final HashMap<Integer, Node> byLength = new HashMap<>();
+    private final ArrayList<Template> templates = new ArrayList<>();
+
+    public TemplateMiner() {
+        this(DEFAULT_SIMILARITY, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxTemplates templates kept at most; the rarer half is dropped when there are more
+     */
+    public TemplateMiner(int maxTemplates) {
+        this(DEFAULT_SIMILARITY, maxTemplates);
+    }
+
+    /**
+     * @param similarity share of message positions that must agree to join a template (0..1]
+     */
+    public TemplateMiner(double similarity, int maxTemplates) {
+        if (maxTemplates < 2) {
+            throw new IllegalArgumentException("maxTemplates must be at least 2: " + maxTemplates);
+        }
+        this.similarity = similarity;
+        this.maxTemplates = maxTemplates;
+    }
+
+    /**
+     * Adds the event to its template (creating one if nothing is similar enough) and returns that template.
+     */
+    public Template add(Event event) {
+        String[] tokens = tokenize(event);
+
+        // 1. Descend the fixed-depth tree
+        Node node = byLength.computeIfAbsent(tokens.length, k -> new Node());
+        for (int depth = 0; depth < Math.min(PREFIX_TOKENS, tokens.length); depth++) {
+            node = node.child(tokens[depth]);
+        }
+
+        // 2. Most similar template in the leaf
+        Template best = null;
+        double bestScore = -1;
+        for (Template candidate : node.templates) {
+            double score = candidate.similarityTo(tokens);
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+
+        // 3. Merge or start a new template
+        if (best == null || bestScore < similarity) {
+            if (templates.size() == maxTemplates) {
+                dropRarerHalf();
+            }
+            best = new Template(tokens, event, node);
+            node.templates.add(best);
+            templates.add(best);
+        } else {
+            best.merge(tokens, event);
+        }
+        return best;
+    }
+
+    /**
+     * All templates, in order of first appearance.
+     */
+    public List<Template> getTemplates() {
+        return templates;
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * Events whose template was dropped to stay within maxTemplates.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    private void dropRarerHalf() {
+        ArrayList<Template> byCount = new ArrayList<>(templates);
+        byCount.sort(Comparator.comparingInt(Template::getCount));
+        for (Template template : byCount.subList(0, byCount.size() / 2)) {
+            template.node.templates.remove(template);
+            template.node = null;
+            droppedEvents += template.count;
+        }
+        templates.removeIf(template -> template.node == null);
+    }
+
+    private static String[] tokenize(Event event) {
+        String message = event.getMessage() == null ? "" : event.getMessage().trim();
+        String[] words = message.isEmpty() ? new String[0] : message.split("\\s+");
+        String[] tokens = new String[words.length + 2];
+        tokens[0] = String.valueOf(event.getLevel());
+        tokens[1] = String.valueOf(event.getLogger());
+        for (int i = 0; i < words.length; i++) {
+            tokens[i + 2] = hasDigit(words[i]) ? WILDCARD : words[i];
+        }
+        return tokens;
+    }
+
+    private static boolean hasDigit(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') return true;
+        }
+        return false;
+    }
+
+    private static class Node {
+        final HashMap<String, Node> children = new HashMap<>();
+        final ArrayList<Template> templates = new ArrayList<>();
+
+        Node child(String token) {
+            Node child = children.get(token);
+            if (child != null) return child;
+            if (WILDCARD.equals(token) || children.size() >= MAX_CHILDREN) {
+                return children.computeIfAbsent(WILDCARD, k -> new Node());
+            }
+            child = new Node();
+            children.put(token, child);
+            return child;
+        }
+    }
+
+    public static class Template {
+        private final String[] tokens;
+        private Node node;                  // the leaf it is listed in, null once dropped
+        private final String exemplar;      // first raw line that produced this template
+        private final String firstTimestamp;
+        private String lastTimestamp;
+        private int count;
+
+        Template(String[] tokens, Event event, Node node) {
+            this.tokens = tokens;
+            this.node = node;
+            this.exemplar = event.getRawLines().isEmpty() ? event.getMessage() : event.getRawLines().getFirst();
+            this.firstTimestamp = event.getTimestamp();
+            this.lastTimestamp = event.getTimestamp();
+            this.count = 1;
+        }
+
+        /**
+         * Share of message positions that agree; a "<*>" in the template accepts anything (as in Drain3).
+         * Level and logger are not counted, they only route.
+         */
+        double similarityTo(String[] other) {
+            if (tokens.length == 2) return 1.0;
+            int same = 0;
+            for (int i = 2; i < tokens.length; i++) {
+                if (WILDCARD.equals(tokens[i]) || tokens[i].equals(other[i])) same++;
+            }
+            return (double) same / (tokens.length - 2);
+        }
+
+        void merge(String[] other, Event event) {
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(other[i])) tokens[i] = WILDCARD;
+            }
+            lastTimestamp = event.getTimestamp();
+            count++;
+        }
+
+        public String getLevel() { return tokens[0]; }
+        public String getLogger() { return tokens[1]; }
+        public int getCount() { return count; }
+        public String getExemplar() { return exemplar; }
+        public String getFirstTimestamp() { return firstTimestamp; }
+        public String getLastTimestamp() { return lastTimestamp; }
+
+        /**
+         * The message part of the template, e.g. "Batch email processing: <*> emails sent".
+         */
+        public String getTemplate() {
+            return String.join(" ", List.of(tokens).subList(2, tokens.length));
+        }
+
+        /**
+         * One bundle signal: the exemplar line as-is for a single event, plus count and template when repeated.
+         */
+        public String toSignal() {
+            if (count == 1) return exemplar;
+            return exemplar + " [x" + count + " until " + lastTimestamp + ": " + getTemplate() + "]";
+        }
+
+        @Override
+        public String toString() {
+            return count + "x " + getLevel() + " " + getLogger() + " - " + getTemplate();
+        }
+    }
+}
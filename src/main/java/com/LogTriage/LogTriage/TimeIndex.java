@@ -0,0 +1,356 @@
+package com.LogTriage.LogTriage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Sparse timestamp -> byte offset index of a log file, kept in a "<log>.tidx" sidecar.
+ *
+ * The file is cut into intervals of roughly INTERVAL_BYTES, each starting on a header line (like the chunks of
+ * ParallelLogParser), and the index stores every interval's start offset with the min and max timestamp of the
+ * lines in it. Log lines from many threads are not strictly ordered, so seeking uses those bounds instead of
+ * assuming sorted input: parsing starts at the first interval that can hold an event >= from, and stops before
+ * the first interval after which nothing is <= to. Events outside [from, to] are then filtered exactly.
+ *
+ * The sidecar remembers the log's size, modification time and a hash of the head and the end of the indexed
+ * content. If the log only grew (same hash over the indexed size), the index is extended from its last interval;
+ * any other change, such as a larger log moved over the old one, rebuilds it. Where the log's directory is not
+ * writable the index is kept in the cache directory instead, and if that fails too it is only used in memory.
+ */
+public class TimeIndex {
+
+    private static final int MAGIC = 0x4C545449; // "LTTI"
+    private static final int VERSION = 2;
+    private static final int DEFAULT_INTERVAL_BYTES = 256 << 10; // 256 KB: ~24k entries (~600 KB) for 6 GB
+    private static final int MAX_LINE_BYTES = 1 << 16;            // longer lines are never used as a cut
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    private static final int READ_BUFFER_CHARS = 1 << 16;
+    private static final int SAMPLE_BYTES = 1 << 16;
+
+    private final Path logFile;
+    private final int intervalBytes;
+    private long logSize;
+    private long logModified;
+    private long contentHash;
+    private int count;
+    private long[] offsets;
+    private long[] minTimes; // Long.MAX_VALUE if the interval has no timestamped line
+    private long[] maxTimes; // Long.MIN_VALUE likewise
+
+    private TimeIndex(Path logFile, int intervalBytes) {
+        this.logFile = logFile;
+        this.intervalBytes = intervalBytes;
+        this.offsets = new long[16];
+        this.minTimes = new long[16];
+        this.maxTimes = new long[16];
+    }
+
+    public static Path sidecarFor(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + ".tidx");
+    }
+
+    /**
+     * Where indexes of logs in read-only directories go: next to the snapshot cache, in logtriage/time-indexes.
+     */
+    public static Path defaultDirectory() {
+        return SnapshotCache.defaultDirectory().resolveSibling("time-indexes");
+    }
+
+    static Path cacheEntryFor(Path logFile, Path cacheDirectory) {
+        String key = logFile.toAbsolutePath().normalize().toString();
+        return cacheDirectory.resolve(String.format("%016x", IncidentFingerprint.hash64(key)) + ".tidx");
+    }
+
+    /**
+     * Loads the sidecar if it still matches the log, extends it if the log grew, or builds it from scratch.
+     * Headers are recognized with 'headerCheck', the same way the parse will see them.
+     */
+    public static TimeIndex open(Path logFile, LogParser headerCheck) throws IOException {
+        return open(logFile, headerCheck, DEFAULT_INTERVAL_BYTES, defaultDirectory());
+    }
+
+    public static TimeIndex open(Path logFile, LogParser headerCheck, int intervalBytes, Path cacheDirectory)
+            throws IOException {
+        long size = Files.size(logFile);
+        long modified = Files.getLastModifiedTime(logFile).toMillis();
+        Path sidecar = sidecarFor(logFile);
+        Path cacheEntry = cacheEntryFor(logFile, cacheDirectory);
+
+        // The sidecar, or the cache entry if the sidecar could not be written: whichever covers more of this log
+        TimeIndex index = null;
+        for (Path location : new Path[]{sidecar, cacheEntry}) {
+            TimeIndex loaded = load(location, logFile, intervalBytes);
+            if (loaded != null && loaded.logSize <= size && loaded.contentHash == contentHash(logFile, loaded.logSize)
+                    && (index == null || loaded.logSize > index.logSize)) {
+                index = loaded;
+            }
+        }
+        if (index != null && index.logSize == size && index.logModified == modified) {
+            return index;
+        }
+        if (index == null || index.count == 0) {
+            index = new TimeIndex(logFile, intervalBytes);
+        } else {
+            index.count--; // the last interval may have been cut short, re-scan it
+        }
+
+        long from = index.count == 0 ? 0 : index.offsets[index.count];
+        index.scan(from, size, headerCheck);
+        index.logSize = size;
+        index.logModified = modified;
+        index.contentHash = contentHash(logFile, size);
+        if (!index.saveQuietly(sidecar) && !index.saveQuietly(cacheEntry)) {
+            System.err.println("⚠️ Could not save the time index of " + logFile + ", it is used in memory only");
+        }
+        return index;
+    }
+
+    /**
+     * Parses only the events with from <= timestamp <= to (epoch millis, see Timestamps) into 'sink'.
+     * @return the number of events handed to the sink
+     */
+    public long parse(LogParser parser, long from, long to, Consumer<Event> sink) throws IOException {
+        long[] range = byteRange(from, to);
+        if (range[0] >= range[1]) return 0;
+
+        long[] emitted = {0};
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            channel.position(range[0]);
+            InputStream in = new BoundedInputStream(Channels.newInputStream(channel), range[1] - range[0]);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()), READ_BUFFER_CHARS);
+            parser.parse(reader, event -> {
+                long time = Timestamps.toEpochMillis(event.getTimestamp());
+                if (time >= from && time <= to) {
+                    sink.accept(event);
+                    emitted[0]++;
+                }
+            });
+        }
+        return emitted[0];
+    }
+
+    /**
+     * The byte range [start, end) that holds every line with a timestamp in [from, to].
+     */
+    public long[] byteRange(long from, long to) {
+        int first = 0;
+        while (first < count && maxTimes[first] < from) first++;
+
+        // Suffix minimum: the range ends before the first interval from which on nothing is <= to
+        int end = count;
+        while (end > first && minTimes[end - 1] > to) end--;
+
+        long start = first < count ? offsets[first] : logSize;
+        long stop = end < count ? offsets[end] : logSize;
+        return new long[]{start, Math.max(start, stop)};
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Walks the lines of [from, size), starting an interval at the first header after every INTERVAL_BYTES.
+     * Only line starts and 23-byte timestamp prefixes are looked at; candidate cut lines get the full header check.
+     */
+    private void scan(long from, long size, LogParser headerCheck) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+            byte[] line = new byte[MAX_LINE_BYTES];
+            int lineLength = 0;
+            long lineStart = from;
+            long nextCut = from; // the first line at 'from' always starts an interval
+            long pos = from;
+
+            while (pos < size) {
+                buffer.clear();
+                int read = channel.read(buffer, pos);
+                if (read <= 0) break;
+                read = (int) Math.min(read, size - pos);
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n') {
+                        nextCut = endLine(line, lineLength, lineStart, nextCut, headerCheck);
+                        lineLength = 0;
+                        lineStart = pos + i + 1;
+                    } else if (lineLength < MAX_LINE_BYTES) {
+                        line[lineLength++] = b;
+                    } else {
+                        lineLength = MAX_LINE_BYTES + 1; // too long to be a cut, keep only the prefix for the timestamp
+                    }
+                }
+                pos += read;
+            }
+            if (lineStart < size) {
+                endLine(line, lineLength, lineStart, nextCut, headerCheck);
+            }
+        }
+    }
+
+    private long endLine(byte[] line, int length, long lineStart, long nextCut, LogParser headerCheck) {
+        int kept = Math.min(length, MAX_LINE_BYTES);
+
+        // 1. Maybe start a new interval here
+        if (lineStart >= nextCut && length <= MAX_LINE_BYTES && isHeader(line, kept, headerCheck)) {
+            addInterval(lineStart);
+            nextCut = lineStart + intervalBytes;
+        }
+
+        // 2. Widen the current interval's time bounds
+        if (count > 0 && kept >= HeaderScanner.TIMESTAMP_LENGTH) {
+            String prefix = new String(line, 0, HeaderScanner.TIMESTAMP_LENGTH, StandardCharsets.ISO_8859_1);
+            long time = Timestamps.toEpochMillis(prefix);
+            if (time != Timestamps.INVALID) {
+                minTimes[count - 1] = Math.min(minTimes[count - 1], time);
+                maxTimes[count - 1] = Math.max(maxTimes[count - 1], time);
+            }
+        }
+        return nextCut;
+    }
+
+    private static boolean isHeader(byte[] line, int length, LogParser headerCheck) {
+        if (length < HeaderScanner.TIMESTAMP_LENGTH) return false;
+        // BufferedReader also ends a line at '\r'
+        int end = 0;
+        while (end < length && line[end] != '\r') end++;
+        return headerCheck.isHeader(new String(line, 0, end, StandardCharsets.UTF_8));
+    }
+
+    private void addInterval(long offset) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            minTimes = Arrays.copyOf(minTimes, count * 2);
+            maxTimes = Arrays.copyOf(maxTimes, count * 2);
+        }
+        offsets[count] = offset;
+        minTimes[count] = Long.MAX_VALUE;
+        maxTimes[count] = Long.MIN_VALUE;
+        count++;
+    }
+
+    /**
+     * CRC32C of the first SAMPLE_BYTES and the last SAMPLE_BYTES before 'length': tells a log that grew from one
+     * that was replaced, without reading all of it.
+     */
+    static long contentHash(Path logFile, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SAMPLE_BYTES, length));
+            channel.read(buffer, 0);
+            crc.update(buffer.flip());
+            if (length > SAMPLE_BYTES) {
+                buffer.clear();
+                long start = Math.max(SAMPLE_BYTES, length - SAMPLE_BYTES);
+                buffer.limit((int) (length - start));
+                channel.read(buffer, start);
+                crc.update(buffer.flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static TimeIndex load(Path location, Path logFile, int intervalBytes) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != intervalBytes) {
+                return null; // other format or interval size: rebuild
+            }
+            TimeIndex index = new TimeIndex(logFile, intervalBytes);
+            index.logSize = in.readLong();
+            index.logModified = in.readLong();
+            index.contentHash = in.readLong();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                index.addInterval(in.readLong());
+                index.minTimes[i] = in.readLong();
+                index.maxTimes[i] = in.readLong();
+            }
+            return index;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("⚠️ Ignoring unreadable time index " + location + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index to 'location' through a temp file, creating its directory if needed.
+     * @return false if it could not be written (read-only directory, full disk)
+     */
+    private boolean saveQuietly(Path location) {
+        Path temp = location.resolveSibling(location.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(location.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(intervalBytes);
+                out.writeLong(logSize);
+                out.writeLong(logModified);
+                out.writeLong(contentHash);
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    out.writeLong(offsets[i]);
+                    out.writeLong(minTimes[i]);
+                    out.writeLong(maxTimes[i]);
+                }
+            }
+            Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing was written, or it can't be removed either
+            }
+            return false;
+        }
+    }
+
+    // Stops after 'remaining' bytes so the parse ends exactly at the range end
+    private static class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+    }
+}
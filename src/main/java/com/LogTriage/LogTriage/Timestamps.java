@@ -0,0 +1,87 @@
+package com.LogTriage.LogTriage;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions for the fixed-width header timestamp "yyyy-MM-dd HH:mm:ss.SSS".
+ * Log timestamps carry no zone, so they are mapped to epoch millis as if they were UTC. This keeps the
+ * conversion exact and reversible; the numbers are only ever compared with each other.
+ */
+public final class Timestamps {
+
+    /** Returned for strings that are not a valid calendar timestamp (the header regex allows e.g. month 13). */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private Timestamps() {
+    }
+
+    public static long toEpochMillis(String timestamp) {
+        if (timestamp == null || timestamp.length() != HeaderScanner.TIMESTAMP_LENGTH
+                || !HeaderScanner.hasTimestampPrefix(timestamp)) {
+            return INVALID;
+        }
+        try {
+            LocalDateTime time = LocalDateTime.of(
+                    digits(timestamp, 0, 4), digits(timestamp, 5, 2), digits(timestamp, 8, 2),
+                    digits(timestamp, 11, 2), digits(timestamp, 14, 2), digits(timestamp, 17, 2));
+            return time.toEpochSecond(ZoneOffset.UTC) * 1000 + digits(timestamp, 20, 3);
+        } catch (DateTimeException e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Parses a user-supplied range bound such as "2026-01-07 19:05", "2026-01-07T19:05:30" or a full timestamp.
+     * Missing seconds/millis are filled with the start (upper = false) or the end (upper = true) of the
+     * given minute/second, so "--to=19:05" style bounds are inclusive.
+     * @throws IllegalArgumentException if the text is not such a timestamp
+     */
+    public static long parseBound(String text, boolean upper) {
+        String value = text.trim().replace('T', ' ');
+        String fill = upper ? "0000-00-00 00:00:59.999" : "0000-00-00 00:00:00.000";
+        if (value.length() >= 16 && value.length() < HeaderScanner.TIMESTAMP_LENGTH) {
+            value = value + fill.substring(value.length());
+        }
+        long millis = toEpochMillis(value);
+        if (millis == INVALID) {
+            throw new IllegalArgumentException("Not a timestamp (expected yyyy-MM-dd HH:mm[:ss[.SSS]]): " + text);
+        }
+        return millis;
+    }
+
+    public static String format(long epochMillis) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000), 0, ZoneOffset.UTC);
+        char[] out = new char[HeaderScanner.TIMESTAMP_LENGTH];
+        put(out, 0, time.getYear(), 4);
+        out[4] = '-';
+        put(out, 5, time.getMonthValue(), 2);
+        out[7] = '-';
+        put(out, 8, time.getDayOfMonth(), 2);
+        out[10] = ' ';
+        put(out, 11, time.getHour(), 2);
+        out[13] = ':';
+        put(out, 14, time.getMinute(), 2);
+        out[16] = ':';
+        put(out, 17, time.getSecond(), 2);
+        out[19] = '.';
+        put(out, 20, (int) Math.floorMod(epochMillis, 1000), 3);
+        return new String(out);
+    }
+
+    private static int digits(String s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static void put(char[] out, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
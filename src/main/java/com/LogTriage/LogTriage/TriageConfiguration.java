@@ -0,0 +1,29 @@
+package com.LogTriage.LogTriage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * The ranker and runbook index every triage in the service uses. They are installed as the process-wide defaults
+ * (EventRanker.getDefault, RunbookIndex.getDefault) once, at startup, rather than by whoever constructs a controller.
+ */
+@Configuration
+public class TriageConfiguration {
+
+    @Bean
+    public EventRanker eventRanker(@Value("${logtriage.triage.app-packages:" + EventRanker.DEFAULT_APP_PACKAGES + "}") String appPackages) {
+        EventRanker ranker = EventRanker.of(appPackages);
+        EventRanker.setDefault(ranker);
+        return ranker;
+    }
+
+    @Bean
+    public RunbookIndex runbookIndex(@Value("${logtriage.triage.runbook:" + RunbookIndex.DEFAULT_RUNBOOK + "}") String runbook) {
+        RunbookIndex index = RunbookIndex.loadIfPresent(Paths.get(runbook)); // indexed once, at startup
+        RunbookIndex.setDefault(index);
+        return index;
+    }
+}
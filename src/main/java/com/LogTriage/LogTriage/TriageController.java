@@ -0,0 +1,185 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /api/triage with the raw log as the request body (text/plain or application/octet-stream).
+ * The body is streamed line by line into LogParser + IncrementalTriage, so an upload is never held in memory.
+ * Request threads are virtual (spring.threads.virtual.enabled), and a semaphore caps how many uploads are
+ * triaged at once. Each upload keeps at most max-retained-events events and max-retained-bytes of their text, and
+ * no single event may grow past max-event-bytes (413 if the anchor's own request group needs more, or an event is
+ * larger). Callers beyond that wait up to queue-timeout and then get 503, which pushes back on clients instead of
+ * letting the heap fill up.
+ * The ranker and runbook come from TriageConfiguration.
+ * With ?report=true the response is the AI report for the bundle instead (see ReportGenerator), or 502 if the
+ * model failed or answered with an invalid report.
+ */
+@RestController
+@RequestMapping("/api/triage")
+public class TriageController {
+
+    private static final int READ_BUFFER_CHARS = 1 << 16;
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    private static final ObjectMapper MAPPER = new ObjectMapper(JSON);
+
+    private final Semaphore permits;
+    private final long queueTimeoutMillis;
+    private final long maxUploadBytes;
+    private final int maxTrackedRequestIds;
+    private final long maxRetainedEvents;
+    private final long maxRetainedBytes;
+    private final long maxEventBytes;
+    private final ReportGenerator reports;
+
+    public TriageController(@Value("${logtriage.triage.max-concurrent:8}") int maxConcurrent,
+                            @Value("${logtriage.triage.queue-timeout-ms:2000}") long queueTimeoutMillis,
+                            @Value("${logtriage.triage.max-upload-bytes:1073741824}") long maxUploadBytes,
+                            @Value("${logtriage.triage.max-tracked-request-ids:50000}") int maxTrackedRequestIds,
+                            @Value("${logtriage.triage.max-retained-events:100000}") long maxRetainedEvents,
+                            @Value("${logtriage.triage.max-retained-bytes:67108864}") long maxRetainedBytes,
+                            @Value("${logtriage.triage.max-event-bytes:8388608}") long maxEventBytes,
+                            EventRanker ranker,
+                            RunbookIndex runbook,
+                            ReportGenerator reports) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.maxUploadBytes = maxUploadBytes;
+        this.maxTrackedRequestIds = maxTrackedRequestIds;
+        this.maxRetainedEvents = maxRetainedEvents;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.maxEventBytes = maxEventBytes;
+        // 'ranker' and 'runbook' are only asked for so they are installed as the defaults before the first upload
+        this.reports = reports;
+    }
+
+    @PostMapping(consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> triage(InputStream body,
+                                                        @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+                                                        @RequestParam(defaultValue = "regex") String parser,
+                                                        @RequestParam(defaultValue = "false") boolean report) throws IOException, InterruptedException {
+        if (contentLength != null && contentLength > maxUploadBytes) {
+            return error(HttpStatus.CONTENT_TOO_LARGE, "Upload exceeds " + maxUploadBytes + " bytes");
+        }
+        if (!permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(errorBody("Triage capacity exhausted, retry later"));
+        }
+
+        LogBundle bundle;
+        try {
+            LogParser logParser = new LogParser("scanner".equalsIgnoreCase(parser)
+                    ? LogParser.HeaderMatcher.SCANNER
+                    : LogParser.HeaderMatcher.REGEX, maxEventBytes);
+            IncrementalTriage triage = new IncrementalTriage(new LogAnalyzer(), maxTrackedRequestIds,
+                    maxRetainedEvents, maxRetainedBytes);
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new LimitedInputStream(body, maxUploadBytes), StandardCharsets.UTF_8), READ_BUFFER_CHARS)) {
+                logParser.parse(reader, triage);
+            } catch (UploadTooLargeException | LogParser.EventTooLargeException
+                     | IncrementalTriage.RetainedEventsExceededException e) {
+                return error(HttpStatus.CONTENT_TOO_LARGE, e.getMessage());
+            }
+
+            bundle = triage.finish();
+        } finally {
+            permits.release();
+        }
+
+        if (bundle == null) {
+            return ResponseEntity.noContent().build();
+        }
+        if (!report) {
+            // The bundle is serialized straight into the response stream once the handler returns
+            return ResponseEntity.ok(bundle::writeJson);
+        }
+        // After the permit is released: waiting on the model must not hold up other uploads' triage
+        try {
+            JsonNode generated = reports.generate(bundle);
+            return ResponseEntity.ok(out -> MAPPER.writeValue(out, generated));
+        } catch (IOException e) {
+            return error(HttpStatus.BAD_GATEWAY, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(errorBody(message));
+    }
+
+    private static StreamingResponseBody errorBody(String message) {
+        return out -> {
+            try (JsonGenerator gen = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+                gen.writeStartObject();
+                gen.writeStringField("error", message);
+                gen.writeEndObject();
+            }
+        };
+    }
+
+    private static class UploadTooLargeException extends IOException {
+        UploadTooLargeException(long limit) {
+            super("Upload exceeds " + limit + " bytes");
+        }
+    }
+
+    // Enforces the size limit for chunked uploads, which have no Content-Length
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long consumed;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        private void count(int n) throws UploadTooLargeException {
+            consumed += n;
+            if (consumed > limit) {
+                throw new UploadTooLargeException(limit);
+            }
+        }
+    }
+}
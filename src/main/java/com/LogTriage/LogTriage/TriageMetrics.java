@@ -0,0 +1,181 @@
+package com.LogTriage.LogTriage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time goes: counters and per-stage timers for the triage pipeline.
+ *
+ * Everything is off by default, and every probe starts with a read of the static 'enabled' flag, so the
+ * disabled cost is one predictable branch (no clock reads, no allocation). When on, values go to LongAdders
+ * that are cheap to update from many parser threads at once. They are exposed to Micrometer/Actuator by
+ * bindTo (see MetricsConfiguration) and printed by the CLI with --stats.
+ */
+public final class TriageMetrics {
+
+    public enum Stage {
+        PARSE("parse"),
+        SELECT_ANCHOR("selectAnchor"),
+        GET_WINDOW("getWindow"),
+        SCAN_SECURITY("scanForSecurity"),
+        FILTER_NOISE("filterNoise"),
+        BUILD_BUNDLE("buildBundle"),
+        WRITE_BUNDLE("writeBundle"),
+        MODEL_CALL("modelCall");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    // Plain static: set once at startup, before any parsing thread starts
+    private static boolean enabled;
+    private static long startedAt = System.nanoTime();
+
+    private static final LongAdder lines = new LongAdder();
+    private static final LongAdder chars = new LongAdder();
+    private static final LongAdder events = new LongAdder();
+    private static final LongAdder headerRegexMatches = new LongAdder();
+    private static final LongAdder requestIdRegexMatches = new LongAdder();
+    private static final LongAdder allocatedBytes = new LongAdder();
+    private static final LongAdder allocationEvents = new LongAdder();
+    private static final LongAdder[] stageNanos = new LongAdder[STAGES.length];
+    private static final LongAdder[] stageCalls = new LongAdder[STAGES.length];
+
+    static {
+        for (int i = 0; i < STAGES.length; i++) {
+            stageNanos[i] = new LongAdder();
+            stageCalls[i] = new LongAdder();
+        }
+    }
+
+    private TriageMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+        if (on) startedAt = System.nanoTime();
+    }
+
+    /**
+     * Starts timing a stage. Pass the result to stop(); 0 means "not measuring".
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Stage stage, long startNanos) {
+        if (startNanos == 0) return;
+        stageNanos[stage.ordinal()].add(System.nanoTime() - startNanos);
+        stageCalls[stage.ordinal()].increment();
+    }
+
+    /**
+     * One call of a stage the caller timed itself, e.g. because it is interleaved with another stage.
+     */
+    static void record(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()].add(nanos);
+        stageCalls[stage.ordinal()].increment();
+    }
+
+    /**
+     * One parse() call: lines and chars read (including line breaks), events completed.
+     */
+    static void parsed(long lineCount, long charCount, long eventCount) {
+        lines.add(lineCount);
+        chars.add(charCount);
+        events.add(eventCount);
+    }
+
+    static void headerRegexMatched() {
+        headerRegexMatches.increment();
+    }
+
+    static void requestIdRegexMatched() {
+        requestIdRegexMatches.increment();
+    }
+
+    /**
+     * Heap bytes allocated by the calling thread so far, or -1 if the JVM can't tell.
+     */
+    static long threadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    static void allocated(long bytes, long eventCount) {
+        allocatedBytes.add(bytes);
+        allocationEvents.add(eventCount);
+    }
+
+    /**
+     * Registers every counter and stage timer with 'registry' (Actuator: /actuator/metrics/logtriage.*).
+     */
+    public static void bindTo(MeterRegistry registry) {
+        counter(registry, "logtriage.parse.lines", "Log lines read", lines);
+        counter(registry, "logtriage.parse.chars", "Characters read, including line breaks", chars);
+        counter(registry, "logtriage.parse.events", "Events assembled", events);
+        counter(registry, "logtriage.regex.header.matches", "Lines matched by the header regex", headerRegexMatches);
+        counter(registry, "logtriage.regex.requestid.matches", "Events with a request id", requestIdRegexMatches);
+        counter(registry, "logtriage.parse.allocated.bytes", "Heap allocated by parsing threads", allocatedBytes);
+        for (Stage stage : STAGES) {
+            FunctionTimer.builder("logtriage.stage", stage,
+                            s -> stageCalls[s.ordinal()].sum(), s -> stageNanos[s.ordinal()].sum(), TimeUnit.NANOSECONDS)
+                    .tag("stage", stage.getLabel())
+                    .description("Time spent per triage stage")
+                    .register(registry);
+        }
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description, LongAdder adder) {
+        FunctionCounter.builder(name, adder, LongAdder::sum).description(description).register(registry);
+    }
+
+    /**
+     * The --stats summary: totals, rates over wall-clock time since setEnabled(true), and time per stage.
+     */
+    public static void printSummary(PrintStream out) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startedAt) / 1e9);
+        long eventCount = events.sum();
+        long allocationCount = allocationEvents.sum();
+
+        out.println("\n--- STATS ---");
+        out.printf(Locale.ROOT, "Lines:   %,d (%,.0f/s)%n", lines.sum(), lines.sum() / seconds);
+        out.printf(Locale.ROOT, "Input:   %,.1f MB (%,.1f MB/s, chars)%n", chars.sum() / 1e6, chars.sum() / 1e6 / seconds);
+        out.printf(Locale.ROOT, "Events:  %,d (%,.0f/s)%n", eventCount, eventCount / seconds);
+        out.printf(Locale.ROOT, "Regex:   %,d header matches, %,d request ids%n",
+                headerRegexMatches.sum(), requestIdRegexMatches.sum());
+        if (allocationCount > 0) {
+            out.printf(Locale.ROOT, "Alloc:   %,d bytes/event while parsing%n", allocatedBytes.sum() / allocationCount);
+        }
+        for (Stage stage : STAGES) {
+            long calls = stageCalls[stage.ordinal()].sum();
+            if (calls == 0) continue;
+            out.printf(Locale.ROOT, "  %-16s %,10.2f ms  (%,d calls)%n",
+                    stage.getLabel(), stageNanos[stage.ordinal()].sum() / 1e6, calls);
+        }
+        out.printf(Locale.ROOT, "Wall:    %,.2f s%n", seconds);
+    }
+}
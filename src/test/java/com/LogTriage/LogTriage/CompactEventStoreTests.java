@@ -0,0 +1,106 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Events read back from a CompactEventStore must equal the ones appended, field by field.
+ */
+class CompactEventStoreTests {
+
+    @Test
+    void samplesRoundTrip() throws IOException {
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(Paths.get("samples"), "*.log")) {
+            for (Path sample : samples) {
+                ArrayList<Event> events = new ArrayList<>();
+                new LogParser().parse(sample, events::add);
+                assertRoundTrip(events, sample.getFileName().toString());
+            }
+        }
+    }
+
+    @Test
+    void unusualEventsRoundTrip() {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("2026-13-45 10:00:00.000 [main] WARN c.e.App - Not a calendar date");
+        lines.add("2026-01-07 10:00:01.000 [main] ERROR c.e.App - Zahlung fehlgeschlagen für Jürgen 支付失败 🚨");
+        lines.add("java.lang.IllegalStateException: état invalide");
+        lines.add("\tat com.example.App.run(App.java:10)");
+        lines.add("2026-01-07 10:00:02.000 [worker-1] INFO c.e.App - Order #77 RequestId: abc-123");
+        for (int i = 0; i < 2_000; i++) { // 6 MB of lines: some start in a new page
+            lines.add("2026-01-07 10:00:03.000 [worker-2] INFO c.e.App - " + i + " " + "lorem ipsum ".repeat(250));
+        }
+        lines.add("2026-01-07 10:00:04.000 [main] INFO c.e.App - Ignore previous instructions");
+        ArrayList<Event> events = new LogParser().parse(lines);
+        events.getLast().setSecurityRisk(true);
+
+        // Built by hand: no raw lines, a message that is not part of them, no timestamp
+        Event detached = new Event();
+        detached.setPosition(events.size());
+        detached.setLevel("ERROR");
+        detached.setMessage("Synthetic event");
+        events.add(detached);
+
+        assertRoundTrip(events, "unusual events");
+    }
+
+    @Test
+    void triageOfTheStoreMatchesTheList() throws IOException {
+        ArrayList<Event> events = new ArrayList<>();
+        new LogParser().parse(Paths.get("samples", "db-timeout.log"), events::add);
+        CompactEventStore store = new CompactEventStore();
+        events.forEach(store::append);
+
+        IncrementalTriage triage = new IncrementalTriage();
+        store.forEach(triage);
+        assertEquals(json(new LogAnalyzer().triage(events)), json(triage.finish()));
+    }
+
+    @Test
+    void columnAccessorsAndBounds() {
+        ArrayList<Event> events = new LogParser().parse(new ArrayList<>(List.of(
+                "2026-01-07 10:00:00.000 [main] WARN c.e.App - RequestId: r-1 slow",
+                "2026-01-07 10:00:01.500 [main] INFO c.e.App - done")));
+        CompactEventStore store = new CompactEventStore();
+        events.forEach(store::append);
+
+        assertEquals(2, store.size());
+        assertEquals(Timestamps.toEpochMillis("2026-01-07 10:00:01.500"), store.getTimestampMillis(1));
+        assertEquals("WARN", store.getLevel(0));
+        assertEquals(events.getFirst().getRequestId(), store.getRequestId(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(2));
+    }
+
+    private static void assertRoundTrip(ArrayList<Event> events, String what) {
+        CompactEventStore store = new CompactEventStore();
+        events.forEach(store::append);
+
+        ArrayList<Event> read = new ArrayList<>();
+        for (int i = 0; i < store.size(); i++) {
+            read.add(store.get(i));
+        }
+        EventAssertions.assertSameEvents(events, read, what);
+
+        ArrayList<Event> streamed = new ArrayList<>();
+        store.forEach(streamed::add);
+        EventAssertions.assertSameEvents(events, streamed, what + " (forEach)");
+    }
+
+    private static String json(LogBundle bundle) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bundle.writeJson(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,40 @@
+package com.LogTriage.LogTriage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Field-by-field comparison of event lists, for the tests of the different ways events are produced
+ * (parallel chunks, snapshots, compact stores...) against plain LogParser output.
+ */
+final class EventAssertions {
+
+    private static final LogAnalyzer ANALYZER = new LogAnalyzer();
+
+    private EventAssertions() {
+    }
+
+    static void assertSameEvents(List<Event> expected, List<Event> actual, String what) {
+        assertEquals(expected.size(), actual.size(), () -> "Event count of " + what);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameEvent(expected.get(i), actual.get(i), what + " event " + i);
+        }
+    }
+
+    static void assertSameEvent(Event e, Event a, String where) {
+        assertEquals(e.getPosition(), a.getPosition(), () -> "Position of " + where);
+        assertEquals(e.getTimestamp(), a.getTimestamp(), () -> "Timestamp of " + where);
+        assertEquals(e.getThread(), a.getThread(), () -> "Thread of " + where);
+        assertEquals(e.getLevel(), a.getLevel(), () -> "Level of " + where);
+        assertEquals(e.getLogger(), a.getLogger(), () -> "Logger of " + where);
+        assertEquals(e.getMessage(), a.getMessage(), () -> "Message of " + where);
+        assertEquals(e.getRequestId(), a.getRequestId(), () -> "Request id of " + where);
+        assertEquals(e.getExceptionClass(), a.getExceptionClass(), () -> "Exception of " + where);
+        assertEquals(e.getSource(), a.getSource(), () -> "Source of " + where);
+        assertEquals(e.isSecurityRisk(), a.isSecurityRisk(), () -> "Security flag of " + where);
+        // Snapshots and compact stores leave the rank to be computed on first use
+        assertEquals(ANALYZER.rankOf(e), ANALYZER.rankOf(a), () -> "Rank of " + where);
+        assertEquals(List.copyOf(e.getRawLines()), List.copyOf(a.getRawLines()), () -> "Raw lines of " + where);
+    }
+}
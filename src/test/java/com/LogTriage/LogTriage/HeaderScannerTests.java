@@ -0,0 +1,121 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HeaderScanner must accept exactly the lines LogParser's HEADER_PATTERN accepts, with the same fields.
+ */
+class HeaderScannerTests {
+
+    private static final String TS = "2026-01-07 14:23:45.102";
+
+    private static final List<String> EDGE_CASES = List.of(
+            TS + " [main] INFO c.e.App - Started",
+            TS + "\t[main]\tWARN\tc.e.App\t-\ttabs everywhere",
+            TS + " \t [main] \t ERROR  c.e.App \t - \t mixed runs",
+            TS + " [] INFO c.e.App - empty thread",
+            TS + " [[nested] thread] INFO c.e.App - brackets in the thread",
+            TS + " [a] b] INFO c.e.App - first ']' does not fit, the second does",
+            TS + " [a]] INFO c.e.App - ]] only the second fits",
+            TS + " [main] INFO c.e.App - ",
+            TS + " [main] INFO c.e.App -",
+            TS + " [main] INFO c.e.App - - dash message",
+            TS + " [main] INFO c.e.App-x - dash in logger",
+            TS + " [main] INFO c.e.App -x",
+            TS + " [main] ERROR",
+            TS + " [main] ERROR ",
+            TS + " [main] ERROR c.e.App",
+            TS + " [main]",
+            TS + " [main",
+            TS + "[main] INFO c.e.App - no space before the thread",
+            TS + " [main]INFO c.e.App - no space after the thread",
+            TS + " [main] IN-FO c.e.App - non-word level",
+            TS + " [main] ÉRROR c.e.App - non-ASCII level",
+            TS + " [main] INFO c.é.App - non-ASCII logger",
+            TS + " [main] INFO\u000Bc.e.App\f-\u000Bvertical tab and form feed",
+            TS + " [main] INFO c.e.App -\u00A0non-breaking space is not \\s",
+            TS + " [main] INFO c.e.App - carriage\rreturn inside",
+            TS + " [main] INFO c.e.App - ends with CR\r",
+            TS + " [ma\nin] INFO c.e.App - newline in the thread",
+            TS + " [main] INFO c.e.App - line\u2028separator",
+            TS,
+            TS.substring(0, 22),
+            "2026-1-07 14:23:45.102 [main] INFO c.e.App - short month",
+            "2026-01-07T14:23:45.102 [main] INFO c.e.App - ISO 'T'",
+            " " + TS + " [main] INFO c.e.App - leading space",
+            "\tat com.example.App.main(App.java:10)",
+            "Caused by: java.lang.IllegalStateException: boom",
+            "");
+
+    @Test
+    void scannerMatchesReferencePatternOnSamplesAndEdgeCases() throws IOException {
+        List<String> lines = new ArrayList<>(EDGE_CASES);
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(Paths.get("samples"), "*.log")) {
+            for (Path sample : samples) {
+                lines.addAll(Files.readAllLines(sample, StandardCharsets.UTF_8));
+            }
+        }
+
+        HeaderScanner scanner = new HeaderScanner(LogParser.headerPattern());
+        LogParser regexParser = new LogParser(LogParser.HeaderMatcher.REGEX);
+        LogParser scannerParser = new LogParser(LogParser.HeaderMatcher.SCANNER);
+        int headers = 0;
+        for (String line : lines) {
+            Matcher m = LogParser.headerPattern().matcher(line);
+            boolean expected = m.find();
+
+            assertEquals(expected, scanner.scan(line), () -> "scan() on: " + line);
+            assertEquals(expected, regexParser.isHeader(line), () -> "REGEX isHeader on: " + line);
+            assertEquals(expected, scannerParser.isHeader(line), () -> "SCANNER isHeader on: " + line);
+            if (!expected) continue;
+
+            headers++;
+            scanner.scan(line);
+            assertEquals(m.group(1), scanner.timestamp(), () -> "Timestamp of: " + line);
+            assertEquals(m.group(2), scanner.thread(), () -> "Thread of: " + line);
+            assertEquals(m.group(3), scanner.level(), () -> "Level of: " + line);
+            assertEquals(m.group(4), scanner.logger(), () -> "Logger of: " + line);
+            assertEquals(m.group(5), scanner.message(), () -> "Message of: " + line);
+        }
+        assertTrue(headers > EDGE_CASES.size(), "Too few header lines: " + headers);
+    }
+
+    @Test
+    void bothMatchersParseTheSamplesIntoTheSameEvents() throws IOException {
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(Paths.get("samples"), "*.log")) {
+            for (Path sample : samples) {
+                ArrayList<String> lines = new ArrayList<>(Files.readAllLines(sample, StandardCharsets.UTF_8));
+                lines.addAll(EDGE_CASES);
+                ArrayList<Event> expected = new LogParser(LogParser.HeaderMatcher.REGEX).parse(lines);
+                ArrayList<Event> actual = new LogParser(LogParser.HeaderMatcher.SCANNER).parse(lines);
+
+                assertEquals(expected.size(), actual.size(), () -> "Event count of " + sample);
+                for (int i = 0; i < expected.size(); i++) {
+                    Event e = expected.get(i);
+                    Event a = actual.get(i);
+                    String where = sample.getFileName() + " event " + i;
+                    assertEquals(e.getTimestamp(), a.getTimestamp(), () -> "Timestamp of " + where);
+                    assertEquals(e.getThread(), a.getThread(), () -> "Thread of " + where);
+                    assertEquals(e.getLevel(), a.getLevel(), () -> "Level of " + where);
+                    assertEquals(e.getLogger(), a.getLogger(), () -> "Logger of " + where);
+                    assertEquals(e.getMessage(), a.getMessage(), () -> "Message of " + where);
+                    assertEquals(e.getRank(), a.getRank(), () -> "Rank of " + where);
+                    assertEquals(List.copyOf(e.getRawLines()), List.copyOf(a.getRawLines()), () -> "Raw lines of " + where);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sighting counts, persistence across reopening, table growth and meta file compaction of IncidentIndex.
+ */
+class IncidentIndexTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordingTheSameSightingAgainDoesNotCountIt() throws IOException {
+        Path file = dir.resolve("incidents.idx");
+        LogBundle bundle = bundle(List.of(), 1, 0);
+        try (IncidentIndex index = IncidentIndex.open(file)) {
+            assertTrue(index.record(bundle).isNew());
+            IncidentIndex.Entry again = index.record(bundle);
+            assertTrue(again.isAlreadyRecorded());
+            assertEquals(1, again.getCount());
+        }
+        try (IncidentIndex index = IncidentIndex.open(file)) {
+            assertTrue(index.record(bundle).isAlreadyRecorded(), "The sighting was not persisted");
+
+            IncidentIndex.Entry later = index.record(bundle(List.of(), 1, 30));
+            assertFalse(later.isAlreadyRecorded());
+            assertEquals(2, later.getCount());
+            assertEquals(1, index.size());
+        }
+    }
+
+    @Test
+    void sameAnchorAtAnotherPositionIsTheSameSighting() throws IOException {
+        // What a --from/--to run sees: the same events, numbered from the start of the range
+        LogBundle whole = bundle(List.of("2026-01-07 09:00:00.000 [main] INFO c.e.App - Started",
+                "2026-01-07 09:30:00.000 [main] INFO c.e.App - Ready"), 1, 0);
+        LogBundle range = bundle(List.of(), 1, 0);
+
+        try (IncidentIndex index = IncidentIndex.open(dir.resolve("incidents.idx"))) {
+            index.record(whole);
+            IncidentIndex.Entry entry = index.record(range);
+            assertTrue(entry.isAlreadyRecorded());
+            assertEquals(1, entry.getCount());
+        }
+    }
+
+    @Test
+    void growingTheTableKeepsEveryEntry() throws IOException {
+        Path file = dir.resolve("incidents.idx");
+        int incidents = 5_000; // past 0.7 x 4096, so the table doubles
+        try (IncidentIndex index = IncidentIndex.open(file)) {
+            for (int i = 0; i < incidents; i++) {
+                index.record(bundle(List.of(), i, 0));
+            }
+            index.record(bundle(List.of(), 7, 1));
+        }
+        try (IncidentIndex index = IncidentIndex.open(file)) {
+            assertEquals(incidents, index.size());
+            for (int i = 0; i < incidents; i++) {
+                LogBundle expected = bundle(List.of(), i, i == 7 ? 1 : 0);
+                IncidentIndex.Entry entry = index.lookup(IncidentFingerprint.of(expected));
+                assertNotNull(entry, "Lost incident " + i);
+                assertEquals(i == 7 ? 2 : 1, entry.getCount());
+                assertEquals(expected.toString(), entry.getBundleJson());
+            }
+        }
+        assertEquals(List.of("incidents.idx", "incidents.idx.lock", "incidents.idx.meta.1"), files());
+    }
+
+    @Test
+    void metaFileIsCompactedWhenMostlyDeadVersions() throws IOException {
+        Path file = dir.resolve("incidents.idx");
+        LogBundle last = null;
+        try (IncidentIndex index = IncidentIndex.open(file)) {
+            // A few incidents seen over and over, each sighting a new version of their metadata
+            for (int minute = 0; minute < 3_000; minute++) {
+                last = bundle(List.of(), minute % 3, minute);
+                index.record(last);
+            }
+        }
+        long liveBytes = 3L * last.toString().length();
+        List<String> files = files();
+        Path meta = dir.resolve(files.getLast());
+        assertNotEquals("incidents.idx.meta", meta.getFileName().toString(), "Never compacted");
+        assertTrue(Files.size(meta) < (1L << 20) + liveBytes, () -> meta + " grew to " + sizeOf(meta));
+        assertEquals(3, files.size(), () -> "Left over: " + files);
+
+        try (IncidentIndex index = IncidentIndex.open(file)) {
+            IncidentIndex.Entry entry = index.lookup(IncidentFingerprint.of(last));
+            assertEquals(1_000, entry.getCount());
+            assertEquals(last.toString(), entry.getBundleJson());
+        }
+    }
+
+    private List<String> files() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            entries.forEach(entry -> names.add(entry.getFileName().toString()));
+        }
+        names.sort(null);
+        return names;
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The bundle of incident 'kind' (its own exception class) at 10:00 + 'minute', after the 'before' lines.
+     */
+    private static LogBundle bundle(List<String> before, int kind, int minute) {
+        ArrayList<String> lines = new ArrayList<>(before);
+        String time = String.format("2026-01-07 %02d:%02d:00.000", 10 + minute / 60, minute % 60);
+        lines.add(time + " [main] ERROR c.e.App - Checkout failed");
+        lines.add("com.example.Failure" + kind + "Exception: boom");
+        lines.add("\tat com.example.App.checkout(App.java:" + (10 + kind % 50) + ")");
+        lines.add(time.replace(":00.000", ":01.000") + " [main] INFO c.e.App - Retrying");
+        return new LogAnalyzer().triage(new LogParser().parse(lines));
+    }
+}
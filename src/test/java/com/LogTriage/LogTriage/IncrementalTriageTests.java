@@ -0,0 +1,155 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IncrementalTriage must build the bundle LogAnalyzer.triage builds, and stay within its memory bounds.
+ */
+class IncrementalTriageTests {
+
+    private static final String TRACE = "\tat org.example.lib.Worker.run(Worker.java:42)";
+
+    @Test
+    void finishMatchesLogAnalyzerOnTheSamples() throws IOException {
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(Paths.get("samples"), "*.log")) {
+            for (Path sample : samples) {
+                ArrayList<Event> events = new ArrayList<>();
+                new LogParser().parse(sample, events::add);
+                assertSameBundle(events, new IncrementalTriage(), sample.getFileName().toString());
+                assertSameBundle(events, new IncrementalTriage(new LogAnalyzer(), 50_000, 100_000, 64L << 20),
+                        sample.getFileName() + " (bounded)");
+            }
+        }
+    }
+
+    @Test
+    void finishMatchesLogAnalyzerWhenTheAnchorIsFoundLate() {
+        ArrayList<String> lines = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String level = (i % 40 == 0) ? "ERROR" : (i % 9 == 0) ? "WARN" : "INFO";
+            String id = (i % 4 == 0) ? "" : " Order #" + (i % 13);
+            lines.add(String.format("2026-01-07 10:%02d:%02d.000 [main] %s c.e.App -%s step %d", i / 60, i % 60, level, id, i));
+            if (i == 250) {
+                lines.add("java.lang.IllegalStateException: boom");
+                lines.add("\tat com.example.App.run(App.java:10)");
+            }
+        }
+        ArrayList<Event> events = new LogParser().parse(lines);
+        assertSameBundle(events, new IncrementalTriage(), "late anchor");
+        assertSameBundle(events, new IncrementalTriage(new LogAnalyzer(), 13, 100_000), "late anchor (bounded)");
+    }
+
+    @Test
+    void singleTrackedRequestIdNeverDropsTheChampionsGroup() {
+        // The champion's group is the eldest whenever another id shows up: it must survive, and finish() must work
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("2026-01-07 10:00:00.000 [main] ERROR c.e.App - Order #1 failed");
+        for (int i = 0; i < 50; i++) {
+            lines.add(String.format("2026-01-07 10:00:%02d.000 [main] INFO c.e.App - Order #%d ok", i + 1, i % 2 == 0 ? 1 : 2 + i));
+        }
+        ArrayList<Event> events = new LogParser().parse(lines);
+
+        IncrementalTriage triage = new IncrementalTriage(new LogAnalyzer(), 1);
+        events.forEach(triage);
+        LogBundle bundle = triage.finish();
+        assertEquals(json(new LogAnalyzer().triage(events)), json(bundle));
+        assertEquals("Order #1", triage.getAnchor().getRequestId());
+    }
+
+    @Test
+    void retainedBytesCapEvictsOtherGroups() {
+        long cap = 64 << 10;
+        IncrementalTriage triage = new IncrementalTriage(new LogAnalyzer(), 1_000, 1_000_000, cap);
+        for (Event event : events(200, 100)) {
+            triage.accept(event);
+            assertTrue(triage.getRetainedBytes() <= cap, () -> triage.getRetainedBytes() + " bytes retained");
+        }
+        // Every group holds a warning, so they are all still candidates: only the byte cap drops them
+        assertTrue(triage.getRetainedEvents() < 600, "No group was evicted");
+    }
+
+    @Test
+    void anchorGroupLargerThanTheByteCapIsRejected() {
+        IncrementalTriage triage = new IncrementalTriage(new LogAnalyzer(), 1_000, 1_000_000, 16 << 10);
+        assertThrows(IncrementalTriage.RetainedEventsExceededException.class, () -> {
+            for (Event event : events(1, 1_000)) {
+                triage.accept(event);
+            }
+        });
+    }
+
+    @Test
+    void stagesAreTimedForStats() {
+        List<Event> events = events(20, 1);
+        long anchorCalls = stageCalls("selectAnchor");
+        long windowCalls = stageCalls("getWindow");
+        TriageMetrics.setEnabled(true);
+        try {
+            IncrementalTriage triage = new IncrementalTriage();
+            events.forEach(triage);
+            triage.finish();
+        } finally {
+            TriageMetrics.setEnabled(false);
+        }
+        assertEquals(anchorCalls + events.size(), stageCalls("selectAnchor"));
+        assertEquals(windowCalls + events.size() + 1, stageCalls("getWindow"));
+    }
+
+    // The "(N calls)" of a stage in the --stats summary, 0 if it is not listed
+    private static long stageCalls(String stage) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TriageMetrics.printSummary(new PrintStream(out, true, StandardCharsets.UTF_8));
+        Matcher line = Pattern.compile("\\s" + stage + "\\s.*\\(([\\d,]+) calls\\)")
+                .matcher(out.toString(StandardCharsets.UTF_8));
+        return line.find() ? Long.parseLong(line.group(1).replace(",", "")) : 0;
+    }
+
+    private static void assertSameBundle(ArrayList<Event> events, IncrementalTriage triage, String what) {
+        String expected = json(new LogAnalyzer().triage(events));
+        events.forEach(triage);
+        assertEquals(expected, json(triage.finish()), () -> "Bundle of " + what);
+    }
+
+    private static String json(LogBundle bundle) {
+        if (bundle == null) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            bundle.writeJson(out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 'orders' request groups of three WARN events with 'frames' stack frames each.
+     */
+    private static List<Event> events(int orders, int frames) {
+        ArrayList<String> lines = new ArrayList<>();
+        for (int i = 0; i < orders * 3; i++) {
+            lines.add(String.format("2026-01-07 10:%02d:%02d.000 [main] WARN c.e.App - Order #%d is slow",
+                    (i / 60) % 60, i % 60, i % orders));
+            for (int f = 0; f < frames; f++) {
+                lines.add(TRACE);
+            }
+        }
+        return new LogParser().parse(lines);
+    }
+}
@@ -0,0 +1,132 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives LogFollower one poll() at a time with a zero linger, so an idle poll completes the pending event.
+ */
+class LogFollowerTests {
+
+    private static final String TRACE = "java.lang.IllegalStateException: boom\n\tat com.example.App.run(App.java:10)\n";
+
+    @TempDir
+    Path dir;
+
+    private final List<LogBundle> bundles = new ArrayList<>();
+    private final List<Boolean> newAnchors = new ArrayList<>();
+
+    @Test
+    void lateContinuationLinesReopenTheLingeredAnchor() throws IOException {
+        Path log = dir.resolve("app.log");
+        Files.writeString(log, header(0, "ERROR", "payment failed"));
+        LogFollower follower = follow(log);
+
+        pollUntilIdle(follower);
+        assertEquals(1, bundles.size());
+        assertNull(bundles.getLast().getExceptionClass(), "Completed on linger, before its trace arrived");
+
+        append(log, TRACE);
+        pollUntilIdle(follower);
+        assertEquals(2, bundles.size(), "The grown anchor was not re-reported");
+        assertTrue(newAnchors.getLast());
+        assertEquals("java.lang.IllegalStateException", bundles.getLast().getExceptionClass());
+        follower.close();
+    }
+
+    @Test
+    void laterIncidentIsReportedAfterATopRankedWindowCloses() throws IOException {
+        Path log = dir.resolve("app.log");
+        StringBuilder content = new StringBuilder(header(0, "ERROR", "first incident")).append(TRACE);
+        for (int i = 1; i <= 20; i++) {
+            content.append(header(i, "INFO", "routine " + i));
+        }
+        content.append(header(21, "ERROR", "second incident")).append(TRACE);
+        content.append(header(22, "INFO", "routine 22"));
+        Files.writeString(log, content);
+        LogFollower follower = follow(log);
+
+        pollUntilIdle(follower);
+        assertEquals(List.of(true, false, true), newAnchors, "Reports: first anchor, its window, second anchor");
+        assertEquals("2026-01-07 10:00:00.000", bundles.get(0).getFirstTimestamp());
+        assertEquals("2026-01-07 10:00:10.000", bundles.get(1).getLastTimestamp());
+        assertEquals("2026-01-07 10:00:21.000", bundles.get(2).getLastTimestamp(), "Anchored on the second incident");
+        assertEquals("2026-01-07 10:00:11.000", bundles.get(2).getFirstTimestamp(),
+                "The second incident's window must not reach back into the first one");
+        follower.close();
+    }
+
+    @Test
+    void truncationStartsTriageOver() throws IOException {
+        Path log = dir.resolve("app.log");
+        Files.writeString(log, header(0, "ERROR", "old incident") + TRACE + header(1, "INFO", "old routine"));
+        LogFollower follower = follow(log);
+        pollUntilIdle(follower);
+        assertEquals(1, bundles.size());
+
+        // copytruncate: same file, shorter content. An old top-ranked anchor must not hide the new (lesser) one.
+        Files.writeString(log, header(30, "WARN", "new"), StandardOpenOption.TRUNCATE_EXISTING);
+        pollUntilIdle(follower);
+        assertEquals(2, bundles.size());
+        assertTrue(newAnchors.getLast());
+        assertEquals("2026-01-07 10:00:30.000", bundles.getLast().getFirstTimestamp());
+        follower.close();
+    }
+
+    @Test
+    void rotationFinishesTheOldFileThenFollowsTheNewOne() throws IOException {
+        Path log = dir.resolve("app.log");
+        Files.writeString(log, header(0, "INFO", "started"));
+        LogFollower follower = follow(log);
+        pollUntilIdle(follower);
+        assertEquals(1, bundles.size());
+
+        // The appender writes a last, unterminated event to the old file after it was moved away
+        Path rotated = dir.resolve("app.log.1");
+        Files.move(log, rotated);
+        append(rotated, header(1, "WARN", "slow").stripTrailing());
+        Files.writeString(log, header(2, "ERROR", "in the new file") + TRACE);
+
+        pollUntilIdle(follower);
+        assertEquals(List.of(true, true, true), newAnchors);
+        assertEquals("2026-01-07 10:00:01.000", bundles.get(1).getLastTimestamp(),
+                "The old file's unterminated last line was lost");
+        assertEquals("java.lang.IllegalStateException", bundles.get(2).getExceptionClass());
+        follower.close();
+    }
+
+    private LogFollower follow(Path log) throws IOException {
+        LogFollower follower = new LogFollower(log, new LogParser(), (bundle, newAnchor) -> {
+            bundles.add(bundle);
+            newAnchors.add(newAnchor);
+        }, 0, 0);
+        follower.open(true);
+        return follower;
+    }
+
+    // Reads what is there, then one idle poll lets the last event linger out
+    private static void pollUntilIdle(LogFollower follower) throws IOException {
+        while (follower.poll()) { }
+        follower.poll();
+    }
+
+    private static void append(Path log, String text) throws IOException {
+        Files.writeString(log, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private static String header(int second, String level, String message) {
+        return String.format("2026-01-07 10:00:%02d.000 [main] %s c.e.App - %s\n", second, level, message);
+    }
+}
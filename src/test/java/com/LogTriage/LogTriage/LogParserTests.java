@@ -0,0 +1,51 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The per-event size cap used for uploads.
+ */
+class LogParserTests {
+
+    private static final String HEADER = "2026-01-07 10:00:00.000 [main] ERROR c.e.App - Order #1 failed";
+    private static final String FRAME = "\tat com.example.App.run(App.java:10)";
+
+    @Test
+    void eventWithinTheCapIsParsed() throws Exception {
+        String log = HEADER + "\n" + (FRAME + "\n").repeat(100) + HEADER + "\n";
+        long cap = (HEADER.length() + 1) + 100L * (FRAME.length() + 1);
+
+        ArrayList<Event> events = new ArrayList<>();
+        new LogParser(LogParser.HeaderMatcher.SCANNER, cap).parse(new BufferedReader(new StringReader(log)), events::add);
+
+        assertEquals(2, events.size());
+        assertEquals(101, events.getFirst().getRawLines().size());
+        assertEquals(cap, LogParser.bytesOf(events.getFirst()));
+    }
+
+    @Test
+    void continuationLinesBeyondTheCapAreRejected() {
+        // One header followed by an endless trace: must fail while reading, not after buffering all of it
+        String log = HEADER + "\n" + (FRAME + "\n").repeat(10_000);
+        long cap = 100L * (FRAME.length() + 1);
+
+        for (LogParser.HeaderMatcher matcher : LogParser.HeaderMatcher.values()) {
+            LogParser parser = new LogParser(matcher, cap);
+            assertThrows(LogParser.EventTooLargeException.class,
+                    () -> parser.parse(new BufferedReader(new StringReader(log)), event -> { }), matcher.name());
+        }
+    }
+
+    @Test
+    void singleLineBeyondTheCapIsRejected() {
+        LogParser parser = new LogParser(LogParser.HeaderMatcher.REGEX, 64);
+        assertThrows(LogParser.EventTooLargeException.class, () -> parser.feed(HEADER + " " + "x".repeat(64)));
+    }
+}
@@ -0,0 +1,165 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Merge order, error propagation and file resolution of MergedLogParser.
+ */
+class MergedLogParserTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void eventsAreMergedByTimestampWithTiesInFileOrder() throws IOException {
+        Path a = write("a.log", line("10:00:00.000", "a0"), line("10:00:02.000", "a2"), line("10:00:04.000", "a4"));
+        Path b = write("b.log", line("10:00:01.000", "b1"), line("10:00:02.000", "b2"), line("10:00:03.000", "b3"));
+
+        List<Event> events = merge(List.of(a, b));
+        assertEquals(List.of("a0", "b1", "a2", "b2", "b3", "a4"), messages(events));
+        assertEquals(List.of(a.toString(), b.toString(), a.toString(), b.toString(), b.toString(), a.toString()),
+                events.stream().map(Event::getSource).toList());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i, events.get(i).getPosition(), "Events are renumbered in merged order");
+        }
+
+        // The tie goes to whichever file is listed first, not to its name
+        assertEquals(List.of("a0", "b1", "b2", "a2", "b3", "a4"), messages(merge(List.of(b, a))));
+    }
+
+    @Test
+    void manyBatchesStayInOrderAndKeepEachFilesOwnOrder() throws IOException {
+        ArrayList<Path> files = new ArrayList<>();
+        for (int f = 0; f < 3; f++) {
+            ArrayList<String> lines = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                // Each file steps at its own pace, so the merge switches files all the time
+                long millis = (long) i * (7 + 3 * f);
+                lines.add(String.format("2026-01-07 10:%02d:%02d.%03d [main] INFO c.e.App - f%d e%d",
+                        millis / 60_000, millis / 1000 % 60, millis % 1000, f, i));
+            }
+            files.add(write("pod-" + f + ".log", lines.toArray(new String[0])));
+        }
+
+        List<Event> events = merge(files);
+        assertEquals(6_000, events.size());
+        int[] next = new int[3];
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            if (i > 0) {
+                assertTrue(event.getTimestamp().compareTo(events.get(i - 1).getTimestamp()) >= 0, "Out of order at " + i);
+            }
+            String[] parts = event.getMessage().split(" ");
+            int file = parts[0].charAt(1) - '0';
+            assertEquals("e" + next[file]++, parts[1], "Order within " + event.getSource());
+        }
+    }
+
+    @Test
+    void eventsWithoutAValidTimestampKeepTheirPlaceInTheirFile() throws IOException {
+        // Month 13 passes the header regex but is no date: the event sorts with the one before it
+        Path a = write("a.log", line("10:00:05.000", "a-first"),
+                "2026-13-07 10:00:09.000 [main] WARN c.e.App - a-undated", line("10:00:06.000", "a-last"));
+        Path b = write("b.log", line("10:00:05.500", "b-only"));
+
+        assertEquals(List.of("a-first", "a-undated", "b-only", "a-last"), messages(merge(List.of(a, b))));
+    }
+
+    @Test
+    void undatedFirstEventOfAFileComesFirst() throws IOException {
+        Path a = write("a.log", line("10:00:00.000", "a-dated"));
+        Path b = write("b.log", "2026-99-99 10:00:09.000 [main] WARN c.e.App - b-undated", line("10:00:01.000", "b-dated"));
+
+        assertEquals(List.of("b-undated", "a-dated", "b-dated"), messages(merge(List.of(a, b))));
+    }
+
+    @Test
+    void parseErrorOfOneFileReachesTheCaller() throws IOException {
+        Path good = write("good.log", line("10:00:00.000", "ok"));
+        Path bad = write("bad.log", line("10:00:00.000", "ok"));
+        MergedLogParser parser = new MergedLogParser((file, sink) -> {
+            long emitted = new LogParser().parse(file, sink);
+            if (file.equals(bad)) throw new IOException("disk gone");
+            return emitted;
+        });
+
+        IOException failure = assertThrows(IOException.class, () -> parser.parse(List.of(good, bad), event -> { }));
+        assertEquals(bad + ": disk gone", failure.getMessage());
+
+        MergedLogParser failing = new MergedLogParser((file, sink) -> {
+            throw new LogParser.EventTooLargeException(1);
+        });
+        assertThrows(LogParser.EventTooLargeException.class, () -> failing.parse(List.of(good), event -> { }));
+    }
+
+    @Test
+    void failingSinkStopsTheProducers() throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            lines.add(line(String.format("10:%02d:%02d.000", i / 60 % 60, i % 60), "e" + i));
+        }
+        Path a = write("a.log", lines.toArray(new String[0]));
+        Path b = write("b.log", lines.toArray(new String[0]));
+        AtomicInteger seen = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> new MergedLogParser().parse(List.of(a, b), event -> {
+            if (seen.incrementAndGet() == 100) throw new IllegalStateException("sink failed");
+        }));
+        assertEquals(100, seen.get());
+    }
+
+    @Test
+    void directoriesAndGlobsSkipSidecars() throws IOException {
+        Path logs = Files.createDirectories(dir.resolve("logs"));
+        for (String name : List.of("pod-b.log", "pod-a.log", "pod-a.log.gz", "pod-a.log.tidx", "pod-a.log.tidx.tmp",
+                "pod-a.log.follow-checkpoint", "incidents.idx.meta", "incidents.idx.meta.3", "incidents.idx.lock",
+                "incidents.idx.grow", ".hidden.log")) {
+            Files.writeString(logs.resolve(name), line("10:00:00.000", name));
+        }
+        Files.createDirectories(logs.resolve("nested"));
+        Files.writeString(logs.resolve("nested").resolve("pod-c.log"), line("10:00:00.000", "nested"));
+
+        assertEquals(List.of(logs.resolve("pod-a.log"), logs.resolve("pod-a.log.gz"), logs.resolve("pod-b.log")),
+                MergedLogParser.resolve(logs.toString()));
+        assertEquals(List.of(logs.resolve("pod-a.log"), logs.resolve("pod-b.log")),
+                MergedLogParser.resolve(logs + "/*.log"));
+        assertEquals(List.of(logs.resolve("nested").resolve("pod-c.log"), logs.resolve("pod-a.log"),
+                logs.resolve("pod-b.log")), MergedLogParser.resolve(logs + "/**.log"));
+        assertEquals(List.of(logs.resolve("pod-a.log")), MergedLogParser.resolve(logs.resolve("pod-a.log").toString()));
+
+        assertThrows(NoSuchFileException.class, () -> MergedLogParser.resolve(logs + "/*.txt"));
+        assertThrows(NoSuchFileException.class, () -> MergedLogParser.resolve(logs.resolve("missing.log").toString()));
+    }
+
+    private static List<Event> merge(List<Path> files) throws IOException {
+        ArrayList<Event> events = new ArrayList<>();
+        long emitted = new MergedLogParser().parse(files, events::add);
+        assertEquals(events.size(), emitted);
+        return events;
+    }
+
+    private static List<String> messages(List<Event> events) {
+        return events.stream().map(Event::getMessage).toList();
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), List.of(lines));
+    }
+
+    private static String line(String time, String message) {
+        return "2026-01-07 " + time + " [main] INFO c.e.App - " + message;
+    }
+}
@@ -0,0 +1,263 @@
+package com.LogTriage.LogTriage;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogInput must decompress exactly what GZIPInputStream does, also when members are inflated in parallel chunks.
+ * Members are built by hand so that every header flag can be set.
+ */
+class ParallelGzipInputStreamTests {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    // Small chunks and output limit, so a few hundred KB exercise splitting, dropped cuts and streamed chunks
+    private static final long SMALL_CHUNK_BYTES = 4 << 10;
+    private static final int SMALL_CHUNK_OUTPUT = 128 << 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void singleMemberFile() throws IOException {
+        assertSameAsGzipInputStream(member(sampleBytes(), 0));
+    }
+
+    @Test
+    void multiMemberFile() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (int i = 0; i < 200; i++) {
+            file.write(member(syntheticLog(i, 2_000), 0));
+        }
+        assertSameAsGzipInputStream(file.toByteArray());
+    }
+
+    @Test
+    void headersWithNameExtraCommentAndHeaderCrc() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        int[] flags = {FNAME, FEXTRA, FCOMMENT, FHCRC, FNAME | FEXTRA | FCOMMENT | FHCRC};
+        for (int i = 0; i < 100; i++) {
+            file.write(member(syntheticLog(i, 3_000), flags[i % flags.length]));
+        }
+        assertSameAsGzipInputStream(file.toByteArray());
+    }
+
+    @Test
+    void emptyMembersAndEmptyLines() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (int i = 0; i < 50; i++) {
+            file.write(member(new byte[0], 0));
+            file.write(member(syntheticLog(i, 500), FNAME));
+        }
+        assertSameAsGzipInputStream(file.toByteArray());
+    }
+
+    @Test
+    void trailingZeroPaddingIsIgnored() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            file.write(member(syntheticLog(i, 2_000), 0));
+        }
+        file.write(new byte[64 << 10]);
+        assertSameAsGzipInputStream(file.toByteArray());
+    }
+
+    @Test
+    void membersTooLargeToBufferAreStreamed() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(member(syntheticLog(0, 400_000), 0));   // well over SMALL_CHUNK_OUTPUT
+        for (int i = 1; i < 50; i++) {
+            file.write(member(syntheticLog(i, 2_000), 0));
+        }
+        file.write(member(syntheticLog(50, 400_000), FNAME));
+        assertSameAsGzipInputStream(file.toByteArray());
+    }
+
+    @Test
+    void corruptCrcFailsLikeGzipInputStream() throws IOException {
+        for (int corrupt : new int[] {0, 40, 99}) {
+            ByteArrayOutputStream file = new ByteArrayOutputStream();
+            for (int i = 0; i < 100; i++) {
+                byte[] member = member(syntheticLog(i, 2_000), 0);
+                if (i == corrupt) member[member.length - 8] ^= 1;
+                file.write(member);
+            }
+            Path gz = write(file.toByteArray());
+
+            assertThrows(IOException.class, () -> gunzip(gz), "GZIPInputStream accepted member " + corrupt);
+            assertThrows(IOException.class, () -> readLogInput(gz, 4), "LogInput accepted member " + corrupt);
+            assertThrows(IOException.class, () -> readSmallChunks(gz, 4), "Small chunks accepted member " + corrupt);
+        }
+    }
+
+    @Test
+    void zstdFileIsDecompressed() throws IOException {
+        byte[] log = sampleBytes();
+        ZstdCompressor compressor = new ZstdCompressor();
+        byte[] compressed = new byte[compressor.maxCompressedLength(log.length)];
+        int length = compressor.compress(log, 0, log.length, compressed, 0, compressed.length);
+        Path zst = write(Arrays.copyOf(compressed, length));
+
+        assertEquals(LogInput.Compression.ZSTD, LogInput.detect(zst));
+        assertArrayEquals(log, readLogInput(zst, 2));
+    }
+
+    @Test
+    void chunksInFlightStayWithinTheHeapShare() {
+        long heapShare = 64L << 20;
+        int output = ParallelGzipInputStream.maxChunkOutput(heapShare);
+        int inFlight = ParallelGzipInputStream.maxInFlight(32, output, heapShare);
+        assertTrue(inFlight >= 1, "No chunk may be in flight");
+        assertTrue(2L * output * (inFlight + 1) <= heapShare,
+                () -> inFlight + " chunks of " + output + " bytes do not fit in " + heapShare);
+        assertEquals(34, ParallelGzipInputStream.maxInFlight(32, 1 << 20, 1L << 40));
+    }
+
+    private void assertSameAsGzipInputStream(byte[] gzip) throws IOException {
+        Path gz = write(gzip);
+        assertEquals(LogInput.Compression.GZIP, LogInput.detect(gz));
+        byte[] expected = gunzip(gz);
+        for (int parallelism : new int[] {1, 4}) {
+            assertArrayEquals(expected, readLogInput(gz, parallelism), "LogInput with parallelism " + parallelism);
+            assertArrayEquals(expected, readSmallChunks(gz, parallelism), "Small chunks with parallelism " + parallelism);
+        }
+    }
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(dir, "log", ".gz"), content);
+    }
+
+    private static byte[] gunzip(Path gz) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gz))) {
+            return readFully(in);
+        }
+    }
+
+    private static byte[] readLogInput(Path file, int parallelism) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (InputStream in = LogInput.open(file, pool)) {
+            return readFully(in);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] readSmallChunks(Path gz, int parallelism) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (InputStream in = new ParallelGzipInputStream(FileChannel.open(gz, StandardOpenOption.READ), pool,
+                SMALL_CHUNK_BYTES, SMALL_CHUNK_OUTPUT)) {
+            return readFully(in);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Mixes single-byte and odd-sized reads, so both read() paths are compared.
+     */
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7919];
+        while (true) {
+            int b = in.read();
+            if (b < 0) break;
+            out.write(b);
+            int n = in.read(buffer);
+            if (n < 0) break;
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] sampleBytes() throws IOException {
+        return Files.readAllBytes(Paths.get("samples", "mixed-noise.log"));
+    }
+
+    private static byte[] syntheticLog(int seed, int lines) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            log.append("2026-01-07 10:00:").append(String.format("%02d.%03d", (i / 1000) % 60, i % 1000))
+                    .append(" [worker-").append(seed % 8).append("] INFO c.e.Batch - member ").append(seed)
+                    .append(" line ").append(i).append(" value ").append((seed * 31L + i * 17L) % 9973).append('\n');
+        }
+        return log.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One gzip member (RFC 1952) of 'data' with the given header flags.
+     */
+    private static byte[] member(byte[] data, int flags) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(GzipMemberReader.ID1);
+        out.write(GzipMemberReader.ID2);
+        out.write(GzipMemberReader.DEFLATE);
+        out.write(flags);
+        out.writeBytes(new byte[] {0x5e, 0x1f, 0x6c, 0x69}); // MTIME
+        out.write(0);                                        // XFL
+        out.write(3);                                        // OS: Unix
+        if ((flags & FEXTRA) != 0) {
+            byte[] extra = {'L', 'T', 4, 0, 1, 2, 3, 4};
+            out.write(extra.length);
+            out.write(0);
+            out.writeBytes(extra);
+        }
+        if ((flags & FNAME) != 0) {
+            out.writeBytes("app.log".getBytes(StandardCharsets.ISO_8859_1));
+            out.write(0);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            out.writeBytes("rotated".getBytes(StandardCharsets.ISO_8859_1));
+            out.write(0);
+        }
+        if ((flags & FHCRC) != 0) {
+            CRC32 headerCrc = new CRC32();
+            headerCrc.update(out.toByteArray());
+            writeLittleEndian(out, headerCrc.getValue(), 2);
+        }
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        writeLittleEndian(out, crc.getValue(), 4);
+        writeLittleEndian(out, data.length, 4);
+        return out.toByteArray();
+    }
+
+    private static void writeLittleEndian(ByteArrayOutputStream out, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parsing in chunks must hand on exactly the events LogParser builds from the whole file.
+ */
+class ParallelLogParserTests {
+
+    @Test
+    void samplesParseLikeTheSequentialParser() throws IOException {
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(Paths.get("samples"), "*.log")) {
+            for (Path sample : samples) {
+                assertSameAsSequential(sample);
+            }
+        }
+    }
+
+    @Test
+    void multiChunkFileWithCrlfAndLongStackTracesParsesLikeTheSequentialParser() throws IOException {
+        Path log = Files.createTempFile("parallel-parser", ".log");
+        try {
+            writeSyntheticLog(log, 6L << 20);
+            int events = assertSameAsSequential(log);
+            assertTrue(events > 10_000, "Synthetic log too small: " + events + " events");
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+
+    /**
+     * CRLF line endings, a 400-frame trace (with a nested cause and "... N more") every 50 events and a request id
+     * on most events, so chunk boundaries regularly fall inside a long event.
+     */
+    private static void writeSyntheticLog(Path log, long minBytes) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(log, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int i = 0; written < minBytes; i++) {
+                StringBuilder event = new StringBuilder();
+                String level = (i % 50 == 0) ? "ERROR" : (i % 7 == 0) ? "WARN" : "INFO";
+                event.append("2026-01-07 10:").append(String.format("%02d:%02d.%03d", (i / 60_000) % 60, (i / 1000) % 60, i % 1000))
+                        .append(" [http-nio-8080-exec-").append(i % 16).append("] ").append(level)
+                        .append(" c.e.orders.OrderService - ");
+                if (i % 5 != 0) event.append("[req-").append(i % 97).append("] ");
+                event.append("processed order ").append(i).append("\r\n");
+                if (i % 50 == 0) {
+                    event.append("java.lang.IllegalStateException: order ").append(i).append(" failed\r\n");
+                    for (int frame = 0; frame < 400; frame++) {
+                        event.append("\tat com.example.orders.Step").append(frame).append(".run(Step")
+                                .append(frame).append(".java:").append(frame + 10).append(")\r\n");
+                    }
+                    event.append("Caused by: java.sql.SQLTimeoutException: timeout\r\n")
+                            .append("\tat org.postgresql.Driver.execute(Driver.java:42)\r\n")
+                            .append("\t... 400 more\r\n");
+                }
+                out.write(event.toString());
+                written += event.length();
+            }
+        }
+    }
+
+    private static int assertSameAsSequential(Path log) throws IOException {
+        ArrayList<Event> expected = new ArrayList<>();
+        new LogParser().parse(log, expected::add);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ArrayList<Event> actual;
+        try {
+            actual = new ParallelLogParser(pool, () -> new LogParser()).parse(log);
+        } finally {
+            pool.shutdown();
+        }
+
+        EventAssertions.assertSameEvents(expected, actual, log.getFileName().toString());
+        return expected.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Expiry, LRU eviction and failure handling of ReportCache. Coalescing is tested through ReportGenerator.
+ */
+class ReportCacheTests {
+
+    private static final IncidentFingerprint A = fingerprint("java.lang.NullPointerException");
+    private static final IncidentFingerprint B = fingerprint("java.sql.SQLTimeoutException");
+    private static final IncidentFingerprint C = fingerprint("java.lang.IllegalStateException");
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void reportIsServedFromTheCacheWithinItsTtl() throws IOException {
+        ReportCache cache = new ReportCache(ReportCache.DEFAULT_TTL_MILLIS, 10);
+        JsonNode first = cache.get(A, this::load);
+        JsonNode second = cache.get(A, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void expiredReportIsGeneratedAgain() throws Exception {
+        ReportCache cache = new ReportCache(20, 10);
+        cache.get(A, this::load);
+        Thread.sleep(50);
+        cache.get(A, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedReportIsEvicted() throws IOException {
+        ReportCache cache = new ReportCache(ReportCache.DEFAULT_TTL_MILLIS, 2);
+        cache.get(A, this::load);
+        cache.get(B, this::load);
+        cache.get(A, this::load); // A is now more recently used than B
+        cache.get(C, this::load);
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+
+        cache.get(A, this::load);
+        assertEquals(3, loads.get(), "A should still be cached");
+        cache.get(B, this::load);
+        assertEquals(4, loads.get(), "B should have been evicted");
+    }
+
+    @Test
+    void failedLoadIsNotCached() throws IOException {
+        ReportCache cache = new ReportCache();
+        IOException failure = assertThrows(IOException.class, () -> cache.get(A, () -> {
+            loads.incrementAndGet();
+            throw new IOException("model unavailable");
+        }));
+        assertEquals("model unavailable", failure.getMessage());
+        assertEquals(0, cache.size());
+
+        cache.get(A, this::load);
+        assertEquals(2, loads.get(), "The next caller must try again");
+        assertEquals(1, cache.size());
+    }
+
+    private JsonNode load() {
+        return JsonNodeFactory.instance.objectNode().put("load", loads.incrementAndGet());
+    }
+
+    private static IncidentFingerprint fingerprint(String exceptionClass) {
+        return IncidentFingerprint.of(exceptionClass, List.of("com.example.App.run(App.java:10)"), List.of());
+    }
+}
@@ -0,0 +1,134 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * ReportGenerator with StubModelClient: concurrent requests for one incident share a model call, and an invalid
+ * answer reaches every caller as InvalidReportException.
+ */
+class ReportGeneratorTests {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void concurrentRequestsForOneIncidentMakeOneModelCall() throws Exception {
+        StubModelClient stub = new StubModelClient();
+        CountDownLatch release = new CountDownLatch(1);
+        ReportCache cache = new ReportCache();
+        ReportGenerator generator = new ReportGenerator(new PromptBuilder(), prompt -> {
+            await(release);
+            return stub.complete(prompt);
+        }, cache, ReportGenerator.DEFAULT_SCHEMA);
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        List<JsonNode> reports = new ArrayList<>();
+        try {
+            for (Future<JsonNode> future : generateConcurrently(callers, generator, cache, release)) {
+                reports.add(future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, stub.getCalls());
+        assertEquals(1, cache.getMisses());
+        assertEquals(CALLERS - 1, cache.getCoalesced());
+        for (JsonNode report : reports) {
+            assertSame(reports.getFirst(), report);
+        }
+        assertTrue(reports.getFirst().path("notes").asText().startsWith("Offline stub report"));
+    }
+
+    @Test
+    void invalidReportReachesEveryWaiterAndIsNotCached() throws Exception {
+        StubModelClient stub = new StubModelClient();
+        CountDownLatch release = new CountDownLatch(1);
+        ReportCache cache = new ReportCache();
+        ReportGenerator generator = new ReportGenerator(new PromptBuilder(), prompt -> {
+            await(release);
+            stub.complete(prompt);
+            return "Sorry, I cannot produce JSON today.";
+        }, cache, ReportGenerator.DEFAULT_SCHEMA);
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            for (Future<JsonNode> future : generateConcurrently(callers, generator, cache, release)) {
+                Exception failure = assertThrows(Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+                ReportGenerator.InvalidReportException invalid =
+                        assertInstanceOf(ReportGenerator.InvalidReportException.class, failure.getCause());
+                assertTrue(invalid.getErrors().getFirst().startsWith("Not JSON"), invalid.getMessage());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, stub.getCalls());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void geminiWithoutAnApiKeyFailsWithAnIOException() {
+        assumeFalse(Files.exists(Paths.get(".env")), "A .env file is present, this would call the real model");
+        IOException failure = assertThrows(IOException.class, () -> new GeminiModelClient().complete("{}"));
+        assertTrue(failure.getMessage().contains("GEMINI_API_KEY"), failure.getMessage());
+        assertFalse(failure instanceof ReportGenerator.InvalidReportException);
+    }
+
+    /**
+     * CALLERS requests for the same bundle; the model call is held back by 'release' until all of them are in.
+     */
+    private static List<Future<JsonNode>> generateConcurrently(ExecutorService callers, ReportGenerator generator,
+                                                               ReportCache cache, CountDownLatch release) throws Exception {
+        LogBundle bundle = sampleBundle();
+        List<Future<JsonNode>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(callers.submit(() -> generator.generate(bundle)));
+        }
+        awaitWaiters(cache);
+        release.countDown();
+        return futures;
+    }
+
+    // Until every caller but the one calling the model is waiting for it
+    private static void awaitWaiters(ReportCache cache) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cache.getCoalesced() < CALLERS - 1) {
+            assertTrue(System.nanoTime() < deadline, "Callers did not coalesce: " + cache.getCoalesced());
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) throw new IOException("Never released");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static LogBundle sampleBundle() throws IOException {
+        ArrayList<Event> events = new ArrayList<>();
+        new LogParser().parse(Paths.get("samples", "npe.log"), events::add);
+        return new LogAnalyzer().triage(events);
+    }
+}
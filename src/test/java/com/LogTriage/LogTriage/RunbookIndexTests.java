@@ -0,0 +1,93 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parsing and tokenizing of the runbook, and the ranking of kb/runbook.md entries for typical incidents.
+ */
+class RunbookIndexTests {
+
+    @Test
+    void runbookEntriesAreParsedIntoFields() throws IOException {
+        RunbookIndex index = RunbookIndex.parse(new BufferedReader(new StringReader("""
+                # Known issues
+
+                3.QueryTimeoutException → Slow query → lock contention → Checks: look at the plan → Fix: add an index
+                Unnumbered entry → only causes
+                """)));
+        assertEquals(2, index.size());
+
+        RunbookIndex.Entry first = index.query().add("QueryTimeoutException", 1).top(1).getFirst().getEntry();
+        assertEquals(1, first.getNumber(), "Numbered by position in the runbook");
+        assertEquals("QueryTimeoutException", first.getTitle());
+        assertEquals("Slow query → lock contention", first.getCauses());
+        assertEquals("look at the plan", first.getChecks());
+        assertEquals("add an index", first.getFix());
+
+        RunbookIndex.Entry second = index.query().add("Unnumbered", 1).top(1).getFirst().getEntry();
+        assertEquals(2, second.getNumber());
+        assertEquals("only causes", second.getCauses());
+        assertEquals("", second.getChecks());
+        assertEquals("", second.getFix());
+    }
+
+    @Test
+    void camelCaseWordsAreIndexedWholeAndByPart() {
+        assertEquals(List.of("sqltimeoutexception", "sql", "timeout", "exception"), terms("SQLTimeoutException"));
+        assertEquals(List.of("user", "getemail", "get", "email", "null"), terms("user.getEmail() is null"));
+        assertEquals(List.of("hikaripool", "hikari", "pool", "1", "timed", "out"), terms("HikariPool-1 - timed out…"));
+        assertEquals(List.of("ora", "01013"), terms("ORA-01013"));
+        assertEquals(List.of(), terms("the, and / or"));
+    }
+
+    @Test
+    void exceptionsRankTheirOwnRunbookEntryFirst() {
+        RunbookIndex index = RunbookIndex.loadIfPresent(Paths.get(RunbookIndex.DEFAULT_RUNBOOK));
+        assertEquals(10, index.size());
+
+        assertEquals(3, best(index, "java.sql.SQLTimeoutException", "ORA-01013: user requested cancel"));
+        assertEquals(1, best(index, "java.lang.NullPointerException", "Cannot invoke \"User.getEmail()\""));
+        assertEquals(6, best(index, "io.lettuce.core.RedisConnectionException", "Unable to connect to localhost:6379"));
+        assertEquals(8, best(index, "java.sql.SQLTransientConnectionException",
+                "HikariPool-1 - Connection is not available, request timed out after 30000ms"));
+    }
+
+    @Test
+    void topIsBoundedByItsLimit() {
+        RunbookIndex index = RunbookIndex.loadIfPresent(Paths.get(RunbookIndex.DEFAULT_RUNBOOK));
+        RunbookIndex.Query query = index.query().add("SQLTimeoutException timeout DB connection", 1);
+
+        assertEquals(List.of(), query.top(0));
+        assertEquals(List.of(), query.top(-1));
+        assertEquals(1, query.top(1).size());
+        List<RunbookIndex.Match> matches = query.top(index.size());
+        assertTrue(matches.size() > 1);
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i).getScore() <= matches.get(i - 1).getScore(), "Not best first: " + matches);
+        }
+        assertEquals(List.of(), index.query().add("Kubernetes", 1).top(3), "No entry mentions it");
+        assertEquals(List.of(), index.query().top(3));
+    }
+
+    // Exception class and message weighted as LogBundle does
+    private static int best(RunbookIndex index, String exceptionClass, String message) {
+        List<RunbookIndex.Match> matches = index.query().add(exceptionClass, 3).add(message, 1).top(3);
+        return matches.getFirst().getEntry().getNumber();
+    }
+
+    private static List<String> terms(String text) {
+        ArrayList<String> terms = new ArrayList<>();
+        RunbookIndex.tokenize(text, 1, (term, weight) -> terms.add(term));
+        return terms;
+    }
+}
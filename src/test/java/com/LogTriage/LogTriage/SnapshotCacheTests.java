@@ -0,0 +1,183 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Events read back from a snapshot must be the parsed events, and a snapshot may only be used while its log is
+ * unchanged.
+ */
+class SnapshotCacheTests {
+
+    @TempDir
+    Path dir;
+
+    // Counts how often the log is actually parsed, i.e. not served from a snapshot
+    private int parses;
+    private final MergedLogParser.FileParser parser = (file, sink) -> {
+        parses++;
+        return new LogParser().parse(file, sink);
+    };
+
+    @Test
+    void snapshotRoundTripsTheParsedEvents() throws IOException {
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(Paths.get("samples"), "*.log")) {
+            samples.forEach(logs::add);
+        }
+        Path odd = dir.resolve("odd.log");
+        Files.writeString(odd, String.join("\n",
+                "continuation before any header",
+                "2026-02-30 25:61:00.000 [main] ERROR c.e.App - not a real date [req-1]",
+                "java.lang.IllegalStateException: boom",
+                "\tat com.example.App.run(App.java:10)",
+                "\t... 3 more",
+                "trailing text after the trace",
+                "2026-01-07 10:00:00.000 [] WARN c.e.Ünïcode - messäge ✅",
+                "",
+                "2026-01-07 10:00:01.000 [main] INFO c.e.App - "), StandardCharsets.UTF_8);
+        logs.add(odd);
+
+        for (Path log : logs) {
+            ArrayList<Event> expected = new ArrayList<>();
+            new LogParser().parse(log, expected::add);
+
+            Path file = dir.resolve(log.getFileName() + ".snap");
+            try (EventSnapshot.Writer writer = new EventSnapshot.Writer(file, log)) {
+                new LogParser().parse(log, writer);
+                writer.finish();
+            }
+            ArrayList<Event> actual = new ArrayList<>();
+            try (EventSnapshot snapshot = EventSnapshot.open(file)) {
+                assertTrue(snapshot.matches(log), "Fresh snapshot does not match " + log);
+                snapshot.forEach(actual::add);
+            }
+            EventAssertions.assertSameEvents(expected, actual, log.getFileName().toString());
+        }
+    }
+
+    @Test
+    void secondParseIsServedFromTheSnapshot() throws IOException {
+        Path log = copyOfSample("npe.log");
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), SnapshotCache.DEFAULT_MAX_BYTES);
+
+        List<Event> first = parse(cache, log);
+        List<Event> second = parse(cache, log);
+
+        assertEquals(1, parses);
+        EventAssertions.assertSameEvents(first, second, "cached npe.log");
+    }
+
+    @Test
+    void changedModificationTimeInvalidatesTheSnapshot() throws IOException {
+        Path log = copyOfSample("npe.log");
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), SnapshotCache.DEFAULT_MAX_BYTES);
+        parse(cache, log);
+
+        Files.setLastModifiedTime(log, FileTime.fromMillis(Files.getLastModifiedTime(log).toMillis() + 60_000));
+        assertNull(cache.lookup(log));
+        parse(cache, log);
+        assertEquals(2, parses);
+    }
+
+    @Test
+    void contentRewrittenWithSameSizeAndTimeInvalidatesTheSnapshot() throws IOException {
+        Path log = copyOfSample("npe.log");
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), SnapshotCache.DEFAULT_MAX_BYTES);
+        List<Event> before = parse(cache, log);
+
+        FileTime modified = Files.getLastModifiedTime(log);
+        String content = Files.readString(log, StandardCharsets.UTF_8);
+        Files.writeString(log, content.replace("ERROR", "FATAL"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(log, modified);
+
+        assertNull(cache.lookup(log));
+        List<Event> after = parse(cache, log);
+        assertEquals(2, parses);
+        assertEquals(before.size(), after.size());
+        assertTrue(after.stream().anyMatch(e -> "FATAL".equals(e.getLevel())), "Stale events were served");
+    }
+
+    @Test
+    void leastRecentlyUsedSnapshotIsEvictedFirst() throws Exception {
+        Path a = copyOfSample("npe.log", "a.log");
+        Path b = copyOfSample("npe.log", "b.log");
+        Path c = copyOfSample("npe.log", "c.log");
+        Path measure = dir.resolve("measure");
+        parse(new SnapshotCache(measure, SnapshotCache.DEFAULT_MAX_BYTES), a);
+        long snapshotBytes;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(measure, "*.snap")) {
+            snapshotBytes = Files.size(entries.iterator().next());
+        }
+
+        // Room for two snapshots of the same size, not three
+        SnapshotCache cache = new SnapshotCache(dir.resolve("cache"), snapshotBytes * 5 / 2);
+        parse(cache, a);
+        Thread.sleep(20);
+        parse(cache, b);
+        Thread.sleep(20);
+        parse(cache, a); // a is now more recently used than b
+        Thread.sleep(20);
+        parse(cache, c);
+
+        assertNotNull(cache.lookup(a), "a was used more recently than b");
+        assertNull(cache.lookup(b), "b should have been evicted");
+        assertNotNull(cache.lookup(c), "c was just written");
+    }
+
+    @Test
+    void unusableCacheDirectoryFallsBackToParsing() throws IOException {
+        Path log = copyOfSample("npe.log");
+        Path notADirectory = dir.resolve("cache");
+        Files.writeString(notADirectory, "a file where the cache directory should be");
+        SnapshotCache cache = new SnapshotCache(notADirectory, SnapshotCache.DEFAULT_MAX_BYTES);
+
+        List<Event> events = parse(cache, log);
+        ArrayList<Event> expected = new ArrayList<>();
+        new LogParser().parse(log, expected::add);
+        EventAssertions.assertSameEvents(expected, events, "uncached npe.log");
+    }
+
+    @Test
+    void logLargerThanTheCapIsNotSnapshotted() throws IOException {
+        Path log = copyOfSample("npe.log");
+        Path cacheDir = dir.resolve("cache");
+        SnapshotCache cache = new SnapshotCache(cacheDir, Files.size(log) - 1);
+
+        parse(cache, log);
+        parse(cache, log);
+
+        assertEquals(2, parses);
+        assertFalse(Files.exists(cacheDir), "A snapshot was written (and evicted again)");
+    }
+
+    private List<Event> parse(SnapshotCache cache, Path log) throws IOException {
+        ArrayList<Event> events = new ArrayList<>();
+        cache.parse(log, parser, events::add);
+        return events;
+    }
+
+    private Path copyOfSample(String sample) throws IOException {
+        return copyOfSample(sample, sample);
+    }
+
+    private Path copyOfSample(String sample, String name) throws IOException {
+        return Files.copy(Paths.get("samples", sample), dir.resolve(name));
+    }
+}
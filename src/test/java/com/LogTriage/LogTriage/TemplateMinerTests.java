@@ -0,0 +1,142 @@
+package com.LogTriage.LogTriage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Masking, merging and tree routing of TemplateMiner, its template cap, and the bundle signals built from it.
+ */
+class TemplateMinerTests {
+
+    @Test
+    void tokensWithDigitsAreMasked() {
+        TemplateMiner miner = new TemplateMiner();
+        TemplateMiner.Template template = miner.add(event(0, "INFO", "Order #551 from 10.0.0.7 took 12ms"));
+
+        assertEquals("Order <*> from <*> took <*>", template.getTemplate());
+        assertSame(template, miner.add(event(1, "INFO", "Order #12 from 192.168.1.1 took 3045ms")));
+        assertEquals(2, template.getCount());
+    }
+
+    @Test
+    void similarMessagesMergeIntoACountedTemplate() {
+        TemplateMiner miner = new TemplateMiner();
+        TemplateMiner.Template template = miner.add(event(0, "WARN", "Cache miss for user alice"));
+        miner.add(event(1, "WARN", "Cache miss for user bob"));
+        miner.add(event(2, "WARN", "Cache miss for user carol"));
+
+        assertEquals(1, miner.size());
+        assertEquals("Cache miss for user <*>", template.getTemplate());
+        assertEquals("2026-01-07 10:00:00.000", template.getFirstTimestamp());
+        assertEquals("2026-01-07 10:00:02.000", template.getLastTimestamp());
+        assertEquals(header(0, "WARN", "Cache miss for user alice")
+                + " [x3 until 2026-01-07 10:00:02.000: Cache miss for user <*>]", template.toSignal());
+    }
+
+    @Test
+    void dissimilarMessagesLevelsAndLoggersStayApart() {
+        TemplateMiner miner = new TemplateMiner();
+        TemplateMiner.Template first = miner.add(event(0, "INFO", "Payment accepted by gateway quickly"));
+        // Same length and first word, but only 2 of 5 positions agree
+        assertNotSame(first, miner.add(event(1, "INFO", "Payment refused at gateway twice")));
+        assertNotSame(first, miner.add(event(2, "WARN", "Payment accepted by gateway quickly")));
+        assertNotSame(first, miner.add(new LogParser().parse(new ArrayList<>(List.of(
+                "2026-01-07 10:00:03.000 [main] INFO c.e.Other - Payment accepted by gateway quickly"))).getFirst()));
+        assertEquals(4, miner.size());
+        assertEquals(header(0, "INFO", "Payment accepted by gateway quickly"), first.toSignal(), "Seen once: as-is");
+    }
+
+    @Test
+    void firstTokensBeyondMaxChildrenShareTheWildcardBranch() {
+        TemplateMiner miner = new TemplateMiner();
+        for (int i = 0; i < TemplateMiner.MAX_CHILDREN; i++) {
+            miner.add(event(i % 60, "ERROR", word(i) + " failed again"));
+        }
+        assertEquals(TemplateMiner.MAX_CHILDREN, miner.size());
+
+        // The node is full: new first words are routed to "<*>", where they merge with each other
+        TemplateMiner.Template overflow = miner.add(event(0, "ERROR", word(1000) + " failed again"));
+        assertSame(overflow, miner.add(event(1, "ERROR", word(1001) + " failed again")));
+        assertEquals("<*> failed again", overflow.getTemplate());
+        assertEquals(TemplateMiner.MAX_CHILDREN + 1, miner.size());
+
+        // Words that got their own branch before still have it
+        TemplateMiner.Template known = miner.getTemplates().get(5);
+        assertSame(known, miner.add(event(2, "ERROR", word(5) + " failed again")));
+        assertEquals(word(5) + " failed again", known.getTemplate());
+    }
+
+    @Test
+    void templateCapDropsTheRarerHalf() {
+        TemplateMiner miner = new TemplateMiner(10);
+        for (int round = 0; round < 20; round++) {
+            miner.add(event(round % 60, "INFO", "Heartbeat ok"));
+            miner.add(event(round % 60, "INFO", "Batch done"));
+            miner.add(event(round % 60, "DEBUG", word(round) + " rarely seen"));
+            assertTrue(miner.size() <= 10, () -> miner.size() + " templates");
+        }
+        List<String> kept = new ArrayList<>();
+        for (TemplateMiner.Template template : miner.getTemplates()) kept.add(template.getTemplate());
+        assertEquals(List.of("Heartbeat ok", "Batch done"), kept.subList(0, 2), "Frequent templates must survive");
+        assertEquals(20, miner.getTemplates().get(0).getCount());
+
+        long counted = 0;
+        for (TemplateMiner.Template template : miner.getTemplates()) counted += template.getCount();
+        assertEquals(60, counted + miner.getDroppedEvents());
+    }
+
+    @Test
+    void omittedSignalsAreCountedOutsideTheSignals() throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add(header(0, "ERROR", "Checkout failed"));
+        lines.add("java.lang.IllegalStateException: boom");
+        for (int i = 0; i < 80; i++) {
+            lines.add(header(1, "INFO", word(i) + " step " + word(i + 500) + " done"));
+        }
+        ArrayList<Event> events = new LogParser().parse(lines);
+        LogBundle bundle = new LogBundle(events.getFirst(), events, 0);
+
+        assertEquals(50, bundle.getSignals().size());
+        assertEquals(31, bundle.getSignalsOmittedCount());
+        assertEquals(lines.getFirst(), bundle.getSignals().getFirst(), "The ERROR wins over INFO lines");
+        for (String signal : bundle.getSignals()) {
+            assertTrue(signal.startsWith("2026-01-07"), signal);
+        }
+
+        // Cutting the prompt adds to the count instead of writing a line into signals
+        String prompt = new PromptBuilder(SecurityScanner.getDefault(), 4_000).build(bundle);
+        JsonNode data = new ObjectMapper().readTree(prompt.substring(prompt.lastIndexOf(PromptBuilder.BUNDLE_MARKER)
+                + PromptBuilder.BUNDLE_MARKER.length()));
+        int kept = data.get("signals").size();
+        assertTrue(kept < 50);
+        assertEquals(31 + (50 - kept), data.get("signalsOmittedCount").asInt());
+    }
+
+    private static Event event(int second, String level, String message) {
+        return new LogParser().parse(new ArrayList<>(List.of(header(second, level, message)))).getFirst();
+    }
+
+    private static String header(int second, String level, String message) {
+        return String.format("2026-01-07 10:00:%02d.000 [main] %s c.e.App - %s", second, level, message);
+    }
+
+    // A digit-free word per number, so it is never masked: 0 -> "a", 27 -> "bb"...
+    private static String word(int n) {
+        StringBuilder word = new StringBuilder();
+        do {
+            word.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return word.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package com.LogTriage.LogTriage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TimeIndex.parse(from, to) must hand out exactly the events a full parse filtered to [from, to] would, also when
+ * threads log out of order across intervals, and after the log grew or was replaced.
+ */
+class TimeIndexTests {
+
+    private static final int SMALL_INTERVAL_BYTES = 2 << 10;
+    private static final long BASE = Timestamps.toEpochMillis("2026-01-07 10:00:00.000");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rangeParseMatchesFilteredFullParse() throws IOException {
+        Path log = Files.writeString(dir.resolve("app.log"), syntheticLog(0, 3_000, 0));
+        TimeIndex index = open(log);
+        assertTrue(index.size() > 50, "Expected many intervals, got " + index.size());
+
+        assertRangesMatch(log, index);
+    }
+
+    @Test
+    void grownLogIsExtended() throws IOException {
+        Path log = Files.writeString(dir.resolve("app.log"), syntheticLog(0, 1_000, 0));
+        int intervals = open(log).size();
+
+        Files.writeString(log, syntheticLog(1_000, 1_000, 0), StandardOpenOption.APPEND);
+        TimeIndex index = open(log);
+        assertTrue(index.size() > intervals);
+        assertRangesMatch(log, index);
+    }
+
+    @Test
+    void largerLogReplacingTheIndexedOneIsReindexed() throws IOException {
+        Path log = Files.writeString(dir.resolve("app.log"), syntheticLog(0, 1_000, 0));
+        open(log);
+
+        // Another log moved over it: larger, with other lines at other offsets an hour later
+        Path replacement = Files.writeString(dir.resolve("other.log"), syntheticLog(0, 2_000, 3_600_000));
+        Files.move(replacement, log, StandardCopyOption.REPLACE_EXISTING);
+        assertRangesMatch(log, open(log));
+    }
+
+    @Test
+    void readOnlyLogDirectoryKeepsTheIndexInTheCache() throws IOException {
+        Path log = Files.writeString(dir.resolve("app.log"), syntheticLog(0, 1_000, 0));
+        // Root may write anywhere, so block the sidecar's temp file instead of the directory
+        Path blocked = Files.createDirectories(dir.resolve("app.log.tidx.tmp"));
+        Files.writeString(blocked.resolve("keep"), "");
+        Path cache = dir.resolve("cache");
+
+        TimeIndex index = TimeIndex.open(log, new LogParser(), SMALL_INTERVAL_BYTES, cache);
+        assertFalse(Files.exists(TimeIndex.sidecarFor(log)));
+        assertTrue(Files.exists(TimeIndex.cacheEntryFor(log, cache)));
+        assertRangesMatch(log, index);
+
+        Files.writeString(log, syntheticLog(1_000, 500, 0), StandardOpenOption.APPEND);
+        assertRangesMatch(log, TimeIndex.open(log, new LogParser(), SMALL_INTERVAL_BYTES, cache));
+    }
+
+    @Test
+    void unwritableCacheLeavesAnInMemoryIndex() throws IOException {
+        Path log = Files.writeString(dir.resolve("app.log"), syntheticLog(0, 1_000, 0));
+        Files.writeString(Files.createDirectories(dir.resolve("app.log.tidx.tmp")).resolve("keep"), "");
+        Path notADirectory = Files.writeString(dir.resolve("cache"), "");
+
+        assertRangesMatch(log, TimeIndex.open(log, new LogParser(), SMALL_INTERVAL_BYTES, notADirectory));
+    }
+
+    private TimeIndex open(Path log) throws IOException {
+        return TimeIndex.open(log, new LogParser(), SMALL_INTERVAL_BYTES, dir.resolve("cache"));
+    }
+
+    private static void assertRangesMatch(Path log, TimeIndex index) throws IOException {
+        List<Event> all = new ArrayList<>();
+        new LogParser().parse(log, all::add);
+        long last = Timestamps.toEpochMillis(all.getLast().getTimestamp());
+        long[][] ranges = {
+                {Long.MIN_VALUE + 1, Long.MAX_VALUE},
+                {BASE - 60_000, BASE - 1},                   // before the log
+                {last + 60_000, Long.MAX_VALUE},             // after it
+                {BASE + 10_000, BASE + 10_000},              // a single millisecond
+                {BASE + 1_234, BASE + 5_678},
+                {BASE + 3_600_000 + 2_000, BASE + 3_600_000 + 30_000},
+                {BASE + 250_000, last},
+        };
+        for (long[] range : ranges) {
+            List<String> expected = new ArrayList<>();
+            for (Event event : all) {
+                long time = Timestamps.toEpochMillis(event.getTimestamp());
+                if (time >= range[0] && time <= range[1]) expected.add(String.join("\n", event.getRawLines()));
+            }
+            List<String> actual = new ArrayList<>();
+            long emitted = index.parse(new LogParser(), range[0], range[1],
+                    event -> actual.add(String.join("\n", event.getRawLines())));
+            String what = "[" + range[0] + ", " + range[1] + "]";
+            assertEquals(expected, actual, what);
+            assertEquals(expected.size(), emitted, what);
+        }
+    }
+
+    /**
+     * 'events' events from four threads, each lagging the one before by two seconds, so intervals overlap in
+     * time. Every 7th event carries a stack trace, every 11th a line without a timestamp.
+     */
+    private static String syntheticLog(int first, int events, long offsetMillis) {
+        StringBuilder log = new StringBuilder();
+        for (int i = first; i < first + events; i++) {
+            int thread = i % 4;
+            long time = BASE + offsetMillis + i * 100L - thread * 2_000L + 2_000;
+            log.append(Timestamps.format(time)).append(" [worker-").append(thread).append("] ")
+                    .append(i % 7 == 0 ? "ERROR" : "INFO").append(" c.e.Batch - item ").append(i).append('\n');
+            if (i % 7 == 0) {
+                log.append("java.lang.IllegalStateException: item ").append(i).append('\n')
+                        .append("\tat com.example.Batch.run(Batch.java:").append(i % 90 + 10).append(")\n");
+            }
+            if (i % 11 == 0) log.append("  continued ").append(i).append('\n');
+        }
+        return log.toString();
+    }
+}